@@ -1,6 +1,7 @@
 package io.redhat.na.ssp.tasktally.api;
 
 import io.redhat.na.ssp.tasktally.github.ssh.SshGitService;
+import io.redhat.na.ssp.tasktally.github.ssh.WorkspaceManager;
 import io.redhat.na.ssp.tasktally.model.CredentialRef;
 import io.redhat.na.ssp.tasktally.service.CredentialStore;
 import jakarta.inject.Inject;
@@ -9,7 +10,6 @@ import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.nio.file.Files;
 import org.jboss.logging.Logger;
 import io.quarkus.security.identity.SecurityIdentity;
 import jakarta.annotation.security.RolesAllowed;
@@ -26,6 +26,8 @@ public class GitSshResource {
   SshGitService git;
   @Inject
   CredentialStore store;
+  @Inject
+  WorkspaceManager workspaces;
 
   @Inject
   SecurityIdentity identity;
@@ -42,9 +44,8 @@ public class GitSshResource {
           .build();
     }
     String uri = "git@" + req.provider + ".com:" + req.owner + "/" + req.repo + ".git";
-    try {
-      java.nio.file.Path dir = Files.createTempDirectory("git-validate");
-      git.cloneShallow(uri, req.branch, dir, cred);
+    try (WorkspaceManager.Workspace workspace = workspaces.acquire("git-validate")) {
+      git.cloneShallow(uri, req.branch, workspace.path(), cred);
       LOG.infof("SSH validation succeeded for user %s", userId);
       return Response.ok(new ValidateResult(true, "Authentication succeeded and repo reachable")).build();
     } catch (Exception e) {
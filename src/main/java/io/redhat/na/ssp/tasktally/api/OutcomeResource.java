@@ -1,12 +1,17 @@
 package io.redhat.na.ssp.tasktally.api;
 
 import io.redhat.na.ssp.tasktally.api.dto.OutcomeDto;
+import io.redhat.na.ssp.tasktally.api.dto.OutcomeTallyDto;
 import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.service.OutcomeQuery;
 import io.redhat.na.ssp.tasktally.service.OutcomeService;
+import io.redhat.na.ssp.tasktally.service.OutcomeTally;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.jboss.logging.Logger;
@@ -23,6 +28,7 @@ import jakarta.ws.rs.ForbiddenException;
 @SecurityRequirement(name = "keycloak")
 public class OutcomeResource {
   private static final Logger LOG = Logger.getLogger(OutcomeResource.class);
+  static final String NEXT_CURSOR = "X-Next-Cursor";
 
   @Inject
   OutcomeService service;
@@ -37,60 +43,118 @@ public class OutcomeResource {
     }
   }
 
+  /**
+   * Lists outcomes. Without query parameters every outcome is returned in file order. With any of them the result is
+   * filtered by exact phase fields, ordered by {@code sort} ({@code -field} for descending) and limited to one page;
+   * the cursor for the next page, if any, is returned in the {@code X-Next-Cursor} header.
+   */
   @GET
-  public List<OutcomeDto> list(@PathParam("userId") String userId, @PathParam("templateId") Long templateId) {
+  public Response list(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
+      @QueryParam("phase") String phase, @QueryParam("track") String track, @QueryParam("product") String product,
+      @QueryParam("environment") String environment, @QueryParam("sort") String sort,
+      @QueryParam("limit") Integer limit, @QueryParam("cursor") String cursor) {
     authorize(userId);
-    LOG.debugf("Listing outcomes for template %d for user %s", templateId, userId);
-    List<OutcomeDto> list = service.listByTemplate(userId, templateId).stream().map(this::toDto)
+    if (phase == null && track == null && product == null && environment == null && sort == null && limit == null
+        && cursor == null) {
+      LOG.debugf("Listing outcomes for template %d for user %s", templateId, userId);
+      List<Outcome> outcomes = service.listByTemplate(userId, templateId);
+      List<OutcomeDto> list = new ArrayList<>(outcomes.size());
+      for (int i = 0; i < outcomes.size(); i++) {
+        list.add(toDto((long) i, outcomes.get(i)));
+      }
+      LOG.infof("Retrieved %d outcomes for template %d for user %s", list.size(), templateId, userId);
+      return Response.ok(list).build();
+    }
+
+    OutcomeQuery query = OutcomeQuery.of(phase, track, product, environment, sort, limit, cursor);
+    LOG.debugf("Querying outcomes for template %d for user %s: %s", templateId, userId, query);
+    OutcomeQuery.Page page = service.query(userId, templateId, query);
+    List<OutcomeDto> list = page.entries().stream().map(e -> toDto((long) e.position(), e.outcome()))
         .collect(Collectors.toList());
     LOG.infof("Retrieved %d outcomes for template %d for user %s", list.size(), templateId, userId);
-    return list;
+    Response.ResponseBuilder response = Response.ok(list);
+    if (page.nextCursor() != null) {
+      response.header(NEXT_CURSOR, page.nextCursor());
+    }
+    return response.build();
+  }
+
+  /**
+   * Outcome counts of this template. {@code groupBy} is a comma-separated list of {@code phase}, {@code track},
+   * {@code product} and {@code environment}; without it a single total is returned.
+   */
+  @GET
+  @Path("/tally")
+  public List<OutcomeTallyDto> tally(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
+      @QueryParam("groupBy") String groupBy) {
+    authorize(userId);
+    List<OutcomeTally.Dimension> dimensions = OutcomeTally.parse(groupBy);
+    LOG.debugf("Tallying outcomes of template %d for user %s by %s", templateId, userId, dimensions);
+    return service.tally(userId, templateId, dimensions).stream().map(OutcomeTallyDto::of)
+        .collect(Collectors.toList());
   }
 
+  /**
+   * Adds an outcome. Like every change below it answers {@code 202 Accepted} when changes are queued
+   * ({@code outcomes.outbox.enabled}): the change has been validated and stored and is committed to Git in the
+   * background, so listings show it only after that. Otherwise the change has been committed when the response is sent.
+   */
   @POST
-  public OutcomeDto create(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
+  public Response create(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
       @Valid OutcomeDto dto) {
     authorize(userId);
     LOG.debugf("Creating outcome for template %d for user %s", templateId, userId);
     Outcome outcome = fromDto(dto);
     Outcome saved = service.create(userId, templateId, outcome);
     LOG.infof("Created outcome for template %d for user %s", templateId, userId);
-    return toDto(saved);
+    return Response.status(written(Response.Status.OK)).entity(toDto(saved)).build();
   }
 
   @PUT
   @Path("/{id}")
-  public OutcomeDto update(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
+  public Response update(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
       @PathParam("id") Long id, @Valid OutcomeDto dto) {
     authorize(userId);
     LOG.debugf("Updating outcome %d for template %d for user %s", id, templateId, userId);
     Outcome outcome = fromDto(dto);
     Outcome updated = service.update(userId, templateId, id, outcome);
     LOG.infof("Updated outcome %d for template %d for user %s", id, templateId, userId);
-    return toDto(updated);
+    return Response.status(written(Response.Status.OK)).entity(toDto(updated)).build();
   }
 
   @DELETE
   @Path("/{id}")
-  public void delete(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
+  public Response delete(@PathParam("userId") String userId, @PathParam("templateId") Long templateId,
       @PathParam("id") Long id) {
     authorize(userId);
     LOG.debugf("Deleting outcome %d for template %d for user %s", id, templateId, userId);
     service.delete(userId, templateId, id);
     LOG.infof("Deleted outcome %d for template %d for user %s", id, templateId, userId);
+    return Response.status(written(Response.Status.NO_CONTENT)).build();
   }
 
   @DELETE
-  public void deleteAll(@PathParam("userId") String userId, @PathParam("templateId") Long templateId) {
+  public Response deleteAll(@PathParam("userId") String userId, @PathParam("templateId") Long templateId) {
     authorize(userId);
     LOG.debugf("Deleting all outcomes for template %d for user %s", templateId, userId);
     service.deleteAllByTemplate(userId, templateId);
     LOG.infof("Deleted all outcomes for template %d for user %s", templateId, userId);
+    return Response.status(written(Response.Status.NO_CONTENT)).build();
+  }
+
+  // Queued changes are accepted rather than done
+  private Response.Status written(Response.Status committed) {
+    return service.writesQueued() ? Response.Status.ACCEPTED : committed;
   }
 
   private OutcomeDto toDto(Outcome o) {
+    return toDto(null, o);
+  }
+
+  // No database ID in Git-based storage; listed outcomes are identified by their position in the YAML file
+  private OutcomeDto toDto(Long id, Outcome o) {
     OutcomeDto dto = new OutcomeDto();
-    dto.id = null; // No database ID in Git-based storage
+    dto.id = id;
     dto.phase = new OutcomeDto.PhaseDto();
     dto.phase.name = o.phase.name;
     dto.phase.track = o.phase.track;
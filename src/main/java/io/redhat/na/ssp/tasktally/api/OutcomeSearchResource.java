@@ -0,0 +1,80 @@
+package io.redhat.na.ssp.tasktally.api;
+
+import io.redhat.na.ssp.tasktally.api.dto.OutcomeDto;
+import io.redhat.na.ssp.tasktally.api.dto.OutcomeSearchHitDto;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.service.OutcomeQuery;
+import io.redhat.na.ssp.tasktally.service.OutcomeSearchHit;
+import io.redhat.na.ssp.tasktally.service.OutcomeService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jboss.logging.Logger;
+import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.annotation.security.RolesAllowed;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.redhat.na.ssp.tasktally.security.Identities;
+import jakarta.ws.rs.ForbiddenException;
+
+@Path("/api/users/{userId}/outcomes/search")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("user")
+@SecurityRequirement(name = "keycloak")
+public class OutcomeSearchResource {
+  private static final Logger LOG = Logger.getLogger(OutcomeSearchResource.class);
+
+  @Inject
+  OutcomeService service;
+
+  @Inject
+  SecurityIdentity identity;
+
+  private void authorize(String pathUser) {
+    String tokenUser = Identities.userId(identity);
+    if (!tokenUser.equals(pathUser)) {
+      throw new ForbiddenException("not your resource");
+    }
+  }
+
+  /**
+   * Searches the user's outcomes across all templates. {@code q} is matched against prefix, description and notes
+   * with web-search syntax ({@code "quoted phrase"}, {@code or}, {@code -excluded}); best matches come first.
+   */
+  @GET
+  public List<OutcomeSearchHitDto> search(@PathParam("userId") String userId, @QueryParam("q") String q,
+      @QueryParam("limit") Integer limit) {
+    authorize(userId);
+    if (q == null || q.isBlank()) {
+      throw new BadRequestException("q is required");
+    }
+    int size = limit != null ? limit : OutcomeQuery.DEFAULT_LIMIT;
+    if (size < 1 || size > OutcomeQuery.MAX_LIMIT) {
+      throw new BadRequestException("limit must be between 1 and " + OutcomeQuery.MAX_LIMIT);
+    }
+    LOG.debugf("Searching outcomes for user %s", userId);
+    List<OutcomeSearchHitDto> hits = service.search(userId, q.trim(), size).stream().map(this::toDto)
+        .collect(Collectors.toList());
+    LOG.infof("Search returned %d outcomes for user %s", hits.size(), userId);
+    return hits;
+  }
+
+  private OutcomeSearchHitDto toDto(OutcomeSearchHit hit) {
+    OutcomeSearchHitDto dto = new OutcomeSearchHitDto();
+    dto.templateId = hit.template() != null ? hit.template().id : null;
+    dto.templateName = hit.template() != null ? hit.template().name : null;
+    Outcome o = hit.outcome();
+    dto.outcome = new OutcomeDto();
+    dto.outcome.id = (long) hit.position();
+    dto.outcome.phase = new OutcomeDto.PhaseDto();
+    dto.outcome.phase.name = o.phase.name;
+    dto.outcome.phase.track = o.phase.track;
+    dto.outcome.phase.product = o.phase.product;
+    dto.outcome.phase.environment = o.phase.environment;
+    dto.outcome.prefix = o.prefix;
+    dto.outcome.description = o.description;
+    dto.outcome.notes = o.notes;
+    return dto;
+  }
+}
@@ -0,0 +1,49 @@
+package io.redhat.na.ssp.tasktally.api;
+
+import io.redhat.na.ssp.tasktally.api.dto.OutcomeTallyDto;
+import io.redhat.na.ssp.tasktally.service.OutcomeService;
+import io.redhat.na.ssp.tasktally.service.OutcomeTally;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jboss.logging.Logger;
+import io.quarkus.security.identity.SecurityIdentity;
+import jakarta.annotation.security.RolesAllowed;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.redhat.na.ssp.tasktally.security.Identities;
+import jakarta.ws.rs.ForbiddenException;
+
+@Path("/api/users/{userId}/outcomes/tally")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("user")
+@SecurityRequirement(name = "keycloak")
+public class OutcomeTallyResource {
+  private static final Logger LOG = Logger.getLogger(OutcomeTallyResource.class);
+
+  @Inject
+  OutcomeService service;
+
+  @Inject
+  SecurityIdentity identity;
+
+  private void authorize(String pathUser) {
+    String tokenUser = Identities.userId(identity);
+    if (!tokenUser.equals(pathUser)) {
+      throw new ForbiddenException("not your resource");
+    }
+  }
+
+  /**
+   * Outcome counts across all of the user's templates. {@code groupBy} is a comma-separated list of {@code phase},
+   * {@code track}, {@code product} and {@code environment}; without it a single total is returned.
+   */
+  @GET
+  public List<OutcomeTallyDto> tally(@PathParam("userId") String userId, @QueryParam("groupBy") String groupBy) {
+    authorize(userId);
+    List<OutcomeTally.Dimension> dimensions = OutcomeTally.parse(groupBy);
+    LOG.debugf("Tallying outcomes for user %s by %s", userId, dimensions);
+    return service.tally(userId, dimensions).stream().map(OutcomeTallyDto::of).collect(Collectors.toList());
+  }
+}
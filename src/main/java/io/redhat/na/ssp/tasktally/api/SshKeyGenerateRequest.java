@@ -7,6 +7,9 @@ public class SshKeyGenerateRequest {
   /** "github" or "gitlab" (required, validated like existing create). */
   public String provider;
 
+  /** Optional: "rsa" (2048 bit, default), "ed25519" or "ecdsa" (NIST P-256). */
+  public String keyType;
+
   /** Optional: comment appended to the public key, default "task-tally@{userId}". */
   public String comment;
 
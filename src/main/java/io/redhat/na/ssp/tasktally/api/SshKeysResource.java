@@ -15,10 +15,7 @@ import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
-import java.util.Base64;
 import java.util.stream.Collectors;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.jboss.logging.Logger;
@@ -140,13 +137,12 @@ public class SshKeysResource {
     LOG.infof("Fetching public SSH key for user: %s, key name: %s", userId, name);
     authorize(userId);
     try {
-      CredentialRef cred = service.get(userId, name);
-      String pk = service.getPublicKey(userId, name);
+      CredentialRef cred = service.getWithPublicKey(userId, name);
       SshPublicKeyResponse out = new SshPublicKeyResponse();
       out.name = cred.name;
       out.provider = cred.provider;
-      out.publicKey = pk;
-      out.fingerprintSha256 = sshSha256(pk);
+      out.publicKey = cred.publicKey;
+      out.fingerprintSha256 = cred.fingerprintSha256;
       return out;
     } catch (IllegalArgumentException e) {
       LOG.errorf("Public key not found for user: %s, key name: %s", userId, name);
@@ -156,15 +152,4 @@ public class SshKeysResource {
       throw new WebApplicationException(e.getMessage(), Response.Status.NOT_IMPLEMENTED);
     }
   }
-
-  static String sshSha256(String publicKeyLine) {
-    String[] parts = publicKeyLine.trim().split("\\s+");
-    byte[] blob = Base64.getDecoder().decode(parts[1]);
-    try {
-      var md = MessageDigest.getInstance("SHA-256");
-      return Base64.getEncoder().encodeToString(md.digest(blob));
-    } catch (NoSuchAlgorithmException e) {
-      throw new RuntimeException(e);
-    }
-  }
 }
@@ -0,0 +1,9 @@
+package io.redhat.na.ssp.tasktally.api.dto;
+
+public class OutcomeSearchHitDto {
+  public Long templateId;
+
+  public String templateName;
+
+  public OutcomeDto outcome;
+}
@@ -0,0 +1,20 @@
+package io.redhat.na.ssp.tasktally.api.dto;
+
+import io.redhat.na.ssp.tasktally.service.OutcomeTally;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class OutcomeTallyDto {
+  /** Values of the grouped phase fields by parameter name, {@code null} where outcomes have none. */
+  public Map<String, String> group;
+
+  public long count;
+
+  public static OutcomeTallyDto of(OutcomeTally.Group group) {
+    OutcomeTallyDto dto = new OutcomeTallyDto();
+    dto.group = new LinkedHashMap<>();
+    group.key().forEach((dimension, value) -> dto.group.put(dimension.parameter(), value));
+    dto.count = group.count();
+    return dto;
+  }
+}
@@ -0,0 +1,12 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+/**
+ * Content of a single file read from a branch tip. {@code blobId} and {@code content} are {@code null} when the file
+ * does not exist in that commit.
+ */
+public record GitBlob(String commitId, String blobId, byte[] content) {
+
+  public boolean exists() {
+    return content != null;
+  }
+}
@@ -0,0 +1,232 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Keeps one local bare repository per remote URL and branch so that Git operations only need an incremental fetch
+ * instead of a fresh clone. Access to a mirror is serialized; different mirrors are independent. Mirrors unused for
+ * {@code git.mirror.idle-timeout}, and the least recently used ones beyond {@code git.mirror.max-count}, are deleted
+ * by a periodic sweep; mirrors left by earlier runs are adopted at startup and age from their last modification.
+ */
+@ApplicationScoped
+public class GitMirrorManager {
+  private static final Logger LOG = Logger.getLogger(GitMirrorManager.class);
+
+  private final Path basePath;
+  private final long idleMillis;
+  private final int maxCount;
+  private final MeterRegistry registry;
+  private final Map<String, Mirror> mirrors = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService sweeper;
+  private final AtomicLong diskUsage = new AtomicLong();
+
+  @Inject
+  public GitMirrorManager(@ConfigProperty(name = "git.mirror.base-path") Optional<String> basePath,
+      @ConfigProperty(name = "git.mirror.idle-timeout", defaultValue = "PT24H") Duration idleTimeout,
+      @ConfigProperty(name = "git.mirror.max-count", defaultValue = "64") int maxCount, MeterRegistry registry) {
+    this.basePath = basePath.filter(p -> !p.isBlank()).map(Paths::get)
+        .orElseGet(() -> Paths.get(System.getProperty("java.io.tmpdir"), "tasktally-mirrors"));
+    this.idleMillis = idleTimeout.toMillis();
+    this.maxCount = maxCount;
+    this.registry = registry;
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "git-mirror-sweeper");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PostConstruct
+  void registerMetrics() {
+    Gauge.builder("git.mirror.count", mirrors, Map::size).description("Local Git mirrors").register(registry);
+    Gauge.builder("git.mirror.disk.usage", diskUsage, AtomicLong::get).baseUnit("bytes")
+        .description("Bytes used by local Git mirrors as of the last sweep").register(registry);
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    adopt();
+    long period = Math.max(60_000, Math.min(idleMillis / 2, 3_600_000));
+    sweeper.scheduleWithFixedDelay(this::sweep, 0, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Callback executed while holding the lock of a mirror.
+   */
+  @FunctionalInterface
+  public interface MirrorCallback<T> {
+    T apply(Repository mirror) throws IOException, GitAPIException;
+  }
+
+  /**
+   * Runs the callback against the mirror for the given remote and branch, creating the bare repository on first use.
+   */
+  public <T> T withMirror(String uri, String branch, MirrorCallback<T> callback) throws IOException, GitAPIException {
+    String key = key(uri, branch);
+    while (true) {
+      Mirror mirror = mirrors.computeIfAbsent(key, k -> new Mirror(basePath.resolve(k), System.currentTimeMillis()));
+      mirror.lock.lock();
+      try {
+        // The sweep deleted this mirror after we looked it up; start a fresh one
+        if (mirror.evicted) {
+          continue;
+        }
+        try {
+          return callback.apply(mirror.open());
+        } finally {
+          mirror.lastUsed = System.currentTimeMillis();
+        }
+      } finally {
+        mirror.lock.unlock();
+      }
+    }
+  }
+
+  /** Bytes used below the mirror base, measured by the last sweep. */
+  public long diskUsage() {
+    return diskUsage.get();
+  }
+
+  /** Registers mirrors left on disk by an earlier run, so the sweep can expire them. */
+  void adopt() {
+    if (!Files.isDirectory(basePath)) {
+      return;
+    }
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(basePath, Files::isDirectory)) {
+      for (Path dir : entries) {
+        long modified = Files.getLastModifiedTime(dir).toMillis();
+        mirrors.putIfAbsent(dir.getFileName().toString(), new Mirror(dir, modified));
+      }
+    } catch (IOException e) {
+      LOG.warnf("Failed to list mirrors in %s: %s", basePath, e.getMessage());
+    }
+  }
+
+  /**
+   * Deletes mirrors idle for longer than the idle timeout, then the least recently used ones until at most
+   * {@code git.mirror.max-count} remain. Mirrors in use are skipped and considered again by the next sweep. The
+   * disk usage of what is left is measured afterwards, so scrapes of the gauge never walk the mirrors.
+   *
+   * @return the number of mirrors deleted
+   */
+  int sweep() {
+    long idleBefore = System.currentTimeMillis() - idleMillis;
+    List<Map.Entry<String, Mirror>> candidates = new ArrayList<>(mirrors.entrySet());
+    candidates.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+    int excess = candidates.size() - maxCount;
+    int removed = 0;
+    for (Map.Entry<String, Mirror> candidate : candidates) {
+      Mirror mirror = candidate.getValue();
+      if ((removed < excess || mirror.lastUsed < idleBefore) && evict(candidate.getKey(), mirror)) {
+        removed++;
+      }
+    }
+    if (removed > 0) {
+      LOG.infof("Removed %d unused Git mirrors", removed);
+    }
+    diskUsage.set(WorkspaceManager.diskUsage(basePath));
+    return removed;
+  }
+
+  private boolean evict(String key, Mirror mirror) {
+    if (!mirror.lock.tryLock()) {
+      return false;
+    }
+    try {
+      mirror.evicted = true;
+      mirrors.remove(key, mirror);
+      mirror.close();
+      WorkspaceManager.deleteRecursively(mirror.dir);
+      LOG.debugf("Deleted mirror repository in %s", mirror.dir);
+      return true;
+    } finally {
+      mirror.lock.unlock();
+    }
+  }
+
+  @PreDestroy
+  void close() {
+    sweeper.shutdownNow();
+    mirrors.values().forEach(Mirror::close);
+    mirrors.clear();
+  }
+
+  static String key(String uri, String branch) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      byte[] digest = md.digest((uri + "\n" + branch).getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest, 0, 20);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Mirror {
+    private final Path dir;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Repository repository;
+    private volatile long lastUsed;
+    // Guarded by lock
+    private boolean evicted;
+
+    private Mirror(Path dir, long lastUsed) {
+      this.dir = dir;
+      this.lastUsed = lastUsed;
+    }
+
+    private Repository open() throws IOException {
+      if (repository == null) {
+        boolean exists = Files.isDirectory(dir.resolve("objects"));
+        Files.createDirectories(dir);
+        Repository repo = new FileRepositoryBuilder().setGitDir(dir.toFile()).setBare().build();
+        if (!exists) {
+          repo.create(true);
+          LOG.debugf("Created mirror repository in %s", dir);
+        }
+        repository = repo;
+      }
+      return repository;
+    }
+
+    private void close() {
+      if (repository != null) {
+        repository.close();
+        repository = null;
+      }
+    }
+  }
+}
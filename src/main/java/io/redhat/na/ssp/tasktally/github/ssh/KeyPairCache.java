@@ -0,0 +1,266 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import java.io.IOException;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.security.auth.DestroyFailedException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Decoded key pairs by credential and secret version. Decrypting a passphrase protected key runs its KDF, which is
+ * deliberately slow, so the result is kept for {@code git.ssh.key-cache.ttl} and shared by Git operations and public
+ * key derivation. Entries are replaced when the secret material changes, dropped when the credential is invalidated
+ * and evicted when they expire or overflow {@code git.ssh.key-cache.max-size}; the private keys of every dropped entry
+ * are destroyed where the key implementation supports it. Key pairs that outlive a single call, like the identities of
+ * a pooled SSH session factory, are taken with {@link #hold} and only destroyed once every hold is closed.
+ */
+@ApplicationScoped
+public class KeyPairCache {
+  private static final Logger LOG = Logger.getLogger(KeyPairCache.class);
+
+  private final int maxSize;
+  private final long ttlNanos;
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final long sweepMillis;
+  private final MeterRegistry registry;
+  private final ScheduledExecutorService sweeper;
+
+  @Inject
+  public KeyPairCache(@ConfigProperty(name = "git.ssh.key-cache.max-size", defaultValue = "256") int maxSize,
+      @ConfigProperty(name = "git.ssh.key-cache.ttl", defaultValue = "PT15M") Duration ttl, MeterRegistry registry) {
+    this.maxSize = maxSize;
+    this.ttlNanos = ttl.toNanos();
+    // Expired keys should not linger in memory just because their credential is no longer used
+    this.sweepMillis = Math.max(1000, ttl.toMillis() / 2);
+    this.registry = registry;
+    this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "ssh-key-cache-sweeper");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PostConstruct
+  void registerMetrics() {
+    FunctionCounter.builder("cache.gets", hits, AtomicLong::get).tag("cache", "ssh-keys").tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("cache.gets", misses, AtomicLong::get).tag("cache", "ssh-keys").tag("result", "miss")
+        .register(registry);
+    Gauge.builder("cache.size", this, KeyPairCache::size).tag("cache", "ssh-keys").register(registry);
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    sweeper.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Key pairs held beyond a single call. Their private keys are not destroyed before the hold is closed, even if the
+   * entry is dropped from the cache in the meantime.
+   */
+  public final class Hold implements AutoCloseable {
+    private final Entry entry;
+    private boolean closed;
+
+    private Hold(Entry entry) {
+      this.entry = entry;
+    }
+
+    public List<KeyPair> keys() {
+      return entry.keys;
+    }
+
+    @Override
+    public void close() {
+      boolean destroyNow;
+      synchronized (KeyPairCache.this) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+        entry.holds--;
+        destroyNow = entry.dropped && entry.holds == 0;
+      }
+      if (destroyNow) {
+        destroy(entry.keys);
+      }
+    }
+  }
+
+  /**
+   * Returns the key pairs of {@code cred}, decoding {@code privateKey} with {@code passphrase} only if no live entry
+   * exists for the same secret material. The keys may be destroyed once the entry is dropped, so callers that keep
+   * them use {@link #hold} instead.
+   */
+  public List<KeyPair> get(CredentialRef cred, byte[] privateKey, char[] passphrase) throws IOException {
+    return lookup(cred, privateKey, passphrase, false).keys;
+  }
+
+  /**
+   * Returns the key pairs of {@code cred} as {@link #get} does, held until the returned hold is closed.
+   */
+  public Hold hold(CredentialRef cred, byte[] privateKey, char[] passphrase) throws IOException {
+    return new Hold(lookup(cred, privateKey, passphrase, true));
+  }
+
+  private Entry lookup(CredentialRef cred, byte[] privateKey, char[] passphrase, boolean hold) throws IOException {
+    String key = SshSessionFactoryPool.credentialKey(cred);
+    String version = SshSessionFactoryPool.version(List.of(privateKey), passphrase);
+    List<Entry> dropped = new ArrayList<>();
+    try {
+      synchronized (this) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version.equals(version) && !entry.expired(System.nanoTime())) {
+          hits.incrementAndGet();
+          if (hold) {
+            entry.holds++;
+          }
+          return entry;
+        }
+        if (entry != null) {
+          entries.remove(key);
+          if (!entry.version.equals(version)) {
+            dropped.add(entry);
+          }
+        }
+      }
+      misses.incrementAndGet();
+      List<KeyPair> keys = TaskTallySshdSessionFactory.parseIdentities(privateKey, passphrase);
+      Entry created = new Entry(version, List.copyOf(keys), System.nanoTime());
+      synchronized (this) {
+        if (hold) {
+          created.holds++;
+        }
+        Entry previous = entries.put(key, created);
+        if (previous != null && !previous.version.equals(version)) {
+          dropped.add(previous);
+        }
+        var it = entries.values().iterator();
+        while (entries.size() > maxSize && it.hasNext()) {
+          dropped.add(it.next());
+          it.remove();
+        }
+      }
+      LOG.debugf("Decoded SSH key pairs for %s", key);
+      return created;
+    } finally {
+      dropped.forEach(this::drop);
+    }
+  }
+
+  /** Drops the key pairs of the credential, e.g. after it was deleted or its secrets changed. */
+  public void invalidate(CredentialRef cred) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.remove(SshSessionFactoryPool.credentialKey(cred));
+    }
+    if (entry != null) {
+      drop(entry);
+    }
+  }
+
+  /** Drops all key pairs, e.g. when changes made by other replicas may have been missed. */
+  public void clear() {
+    List<Entry> all;
+    synchronized (this) {
+      all = new ArrayList<>(entries.values());
+      entries.clear();
+    }
+    all.forEach(this::drop);
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  void sweep() {
+    long now = System.nanoTime();
+    List<Entry> expired = new ArrayList<>();
+    synchronized (this) {
+      var it = entries.values().iterator();
+      while (it.hasNext()) {
+        Entry entry = it.next();
+        if (entry.expired(now)) {
+          expired.add(entry);
+          it.remove();
+        }
+      }
+    }
+    expired.forEach(this::drop);
+    if (!expired.isEmpty()) {
+      LOG.debugf("Dropped %d expired SSH key pairs", expired.size());
+    }
+  }
+
+  @PreDestroy
+  void close() {
+    sweeper.shutdownNow();
+    clear();
+  }
+
+  /** Destroys the keys of an entry removed from the cache, or defers that to the close of its last hold. */
+  private void drop(Entry entry) {
+    boolean destroyNow;
+    synchronized (this) {
+      entry.dropped = true;
+      destroyNow = entry.holds == 0;
+    }
+    if (destroyNow) {
+      destroy(entry.keys);
+    }
+  }
+
+  /** Destroys the private keys of a dropped entry where the key implementation supports it. */
+  void destroy(List<KeyPair> keys) {
+    for (KeyPair pair : keys) {
+      try {
+        if (!pair.getPrivate().isDestroyed()) {
+          pair.getPrivate().destroy();
+        }
+      } catch (DestroyFailedException e) {
+        // Most JDK key implementations cannot be wiped; the key is left to the garbage collector
+      }
+    }
+  }
+
+  private final class Entry {
+    private final String version;
+    private final List<KeyPair> keys;
+    private final long created;
+    private int holds;
+    private boolean dropped;
+
+    private Entry(String version, List<KeyPair> keys, long created) {
+      this.version = version;
+      this.keys = keys;
+      this.created = created;
+    }
+
+    private boolean expired(long now) {
+      return now - created > ttlNanos;
+    }
+  }
+}
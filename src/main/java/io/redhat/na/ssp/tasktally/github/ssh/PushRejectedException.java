@@ -0,0 +1,15 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import java.io.IOException;
+
+/**
+ * Signals that a commit could not be pushed because the remote branch moved: either it no longer points at the
+ * expected parent, or the remote rejected the update as non-fast-forward. Callers can fetch the new tip and retry.
+ */
+public class PushRejectedException extends IOException {
+  private static final long serialVersionUID = 1L;
+
+  public PushRejectedException(String message) {
+    super(message);
+  }
+}
@@ -5,55 +5,158 @@ import io.redhat.na.ssp.tasktally.secret.SecretResolver;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.errors.PackProtocolException;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.FilterSpec;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
 import org.eclipse.jgit.transport.SshTransport;
 import org.eclipse.jgit.transport.Transport;
 import org.eclipse.jgit.transport.sshd.SshdSessionFactory;
 import org.eclipse.jgit.transport.sshd.SshdSessionFactoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.jboss.logging.Logger;
 
 /**
  * Git operations over SSH using JGit.
+ * <p>
+ * Fetches are shallow partial fetches: only the tip commit and its trees are transferred, and a blob is fetched by id
+ * the first time a file is read. Servers that do not support object filters get a plain shallow fetch instead.
  */
 @ApplicationScoped
 public class SshGitService {
   private static final Logger LOG = Logger.getLogger(SshGitService.class);
+  static final FilterSpec NO_BLOBS;
+
+  static {
+    try {
+      NO_BLOBS = FilterSpec.fromFilterLine("blob:none");
+    } catch (PackProtocolException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /** Remotes that rejected an object filter; they are fetched without one from then on. */
+  private final Set<String> unfilteredRemotes = ConcurrentHashMap.newKeySet();
   @Inject
   SecretResolver resolver;
+  @Inject
+  GitMirrorManager mirrors;
+  @Inject
+  SshSessionFactoryPool sessions;
 
-  private SshdSessionFactory factoryFor(CredentialRef cred) throws IOException {
+  @Inject
+  KeyPairCache keyPairs;
+
+  private SshSessionFactoryPool.Lease leaseFor(CredentialRef cred) throws IOException {
     if (cred == null) {
       LOG.debug("Using default SSH configuration");
-      java.io.File home = new java.io.File(System.getProperty("user.home"));
-      return new SshdSessionFactoryBuilder().setHomeDirectory(home).setSshDirectory(new java.io.File(home, ".ssh"))
-          .build(null);
+      return sessions.acquire(null, List.of(), null, owned -> {
+        java.io.File home = new java.io.File(System.getProperty("user.home"));
+        return new SshdSessionFactoryBuilder().setHomeDirectory(home).setSshDirectory(new java.io.File(home, ".ssh"))
+            .build(null);
+      });
     }
     LOG.debugf("Using credential %s", cred.getName());
     byte[] key = resolver.resolveBytes(cred.getSecretRef());
     byte[] known = cred.getKnownHostsRef() != null ? resolver.resolveBytes(cred.getKnownHostsRef()) : new byte[0];
     char[] pass = cred.getPassphraseRef() != null ? resolver.resolve(cred.getPassphraseRef()).toCharArray() : null;
-    return TaskTallySshdSessionFactory.create(key, known, pass, null);
+    try {
+      return sessions.acquire(cred, List.of(key, known), pass, owned -> {
+        // The pooled factory keeps using the keys after this call, so the pool owns the hold
+        KeyPairCache.Hold keys = keyPairs.hold(cred, key, pass);
+        owned.accept(keys);
+        return TaskTallySshdSessionFactory.create(keys.keys(), TaskTallySshdSessionFactory.parseKnownHosts(known));
+      });
+    } finally {
+      Arrays.fill(key, (byte) 0);
+      if (pass != null) {
+        Arrays.fill(pass, '\0');
+      }
+    }
   }
 
   private TransportConfigCallback callback(SshdSessionFactory factory) {
+    return callback(factory, null);
+  }
+
+  private TransportConfigCallback callback(SshdSessionFactory factory, FilterSpec filter) {
     return (Transport transport) -> {
-      SshTransport ssh = (SshTransport) transport;
-      ssh.setSshSessionFactory(factory);
+      if (transport instanceof SshTransport ssh) {
+        ssh.setSshSessionFactory(factory);
+      }
+      if (filter != null) {
+        transport.setFilterSpec(filter);
+      }
     };
   }
 
-  public Path cloneShallow(String uri, String branch, Path dir, CredentialRef cred)
+  /**
+   * Clones the tip of {@code branch} into {@code dir} as a shallow partial clone. Only the listed {@code paths} are
+   * checked out, and only their blobs are downloaded; paths missing at the tip are skipped.
+   */
+  public Path cloneShallow(String uri, String branch, Path dir, CredentialRef cred, String... paths)
       throws GitAPIException, IOException {
     LOG.debugf("Cloning %s (branch %s)", uri, branch);
-    SshdSessionFactory fac = factoryFor(cred);
-    try {
-      Git git = Git.cloneRepository().setURI(uri).setBranch(branch).setDepth(1).setDirectory(dir.toFile())
-          .setTransportConfigCallback(callback(fac)).call();
-      git.getRepository().close();
-      git.close();
+    try (SshSessionFactoryPool.Lease lease = leaseFor(cred);
+        // Bare until the requested paths are written, so the fallback in ensureBlob may drop the branch ref
+        Git git = Git.init().setBare(true).setGitDir(dir.resolve(Constants.DOT_GIT).toFile()).setInitialBranch(branch)
+            .call()) {
+      SshdSessionFactory fac = lease.factory();
+      Repository repo = git.getRepository();
+      StoredConfig config = repo.getConfig();
+      config.setString("remote", "origin", "url", uri);
+      config.setString("remote", "origin", "fetch", branchSpec(branch).toString());
+      config.save();
+      fetchIntoMirror(repo, uri, branch, fac);
+      ObjectId tip = repo.resolve(Constants.R_HEADS + branch);
+      if (tip == null) {
+        throw new IOException("Branch " + branch + " not found in " + uri);
+      }
+      try (RevWalk walk = new RevWalk(repo)) {
+        RevCommit commit = walk.parseCommit(tip);
+        for (String path : paths) {
+          try (TreeWalk tree = TreeWalk.forPath(repo, path, commit.getTree())) {
+            if (tree == null) {
+              continue;
+            }
+            ObjectId blob = tree.getObjectId(0);
+            ensureBlob(repo, uri, branch, blob, fac);
+            Path file = dir.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.write(file, repo.open(blob, Constants.OBJ_BLOB).getBytes());
+          }
+        }
+      }
+      config.setBoolean("core", null, "bare", false);
+      config.save();
       LOG.infof("Cloned repository %s", uri);
       return dir;
     } catch (GitAPIException e) {
@@ -62,18 +165,220 @@ public class SshGitService {
     }
   }
 
-  public void commitAndPush(Path dir, String authorName, String authorEmail, String message, CredentialRef cred)
-      throws IOException, GitAPIException {
-    LOG.debugf("Committing and pushing in %s", dir);
-    SshdSessionFactory fac = factoryFor(cred);
-    try (Git git = Git.open(dir.toFile())) {
-      git.add().addFilepattern(".").call();
-      git.commit().setAuthor(authorName, authorEmail).setMessage(message).call();
-      git.push().setTransportConfigCallback(callback(fac)).call();
-      LOG.info("Push successful");
-    } catch (GitAPIException | IOException e) {
-      LOG.error("Push failed", e);
-      throw e;
+  /**
+   * Looks up the current tip of {@code branch} with a single {@code ls-remote} round trip. No objects are transferred.
+   *
+   * @return the tip commit id, or {@code null} when the branch does not exist
+   */
+  public String remoteTip(String uri, String branch, CredentialRef cred) throws GitAPIException, IOException {
+    try (SshSessionFactoryPool.Lease lease = leaseFor(cred)) {
+      Map<String, Ref> refs = Git.lsRemoteRepository().setRemote(uri).setHeads(true)
+          .setTransportConfigCallback(callback(lease.factory())).callAsMap();
+      Ref ref = refs.get(Constants.R_HEADS + branch);
+      return ref != null && ref.getObjectId() != null ? ref.getObjectId().name() : null;
+    }
+  }
+
+  /**
+   * Fetches the branch tip into the local mirror and reads {@code path} straight from the object database. No working
+   * tree or temporary directory is created, and the only blob downloaded is the one at {@code path}.
+   */
+  public GitBlob readFile(String uri, String branch, String path, CredentialRef cred)
+      throws GitAPIException, IOException {
+    LOG.debugf("Reading %s from %s (branch %s)", path, uri, branch);
+    try (SshSessionFactoryPool.Lease lease = leaseFor(cred)) {
+      SshdSessionFactory fac = lease.factory();
+      return mirrors.withMirror(uri, branch, mirror -> {
+        fetchIntoMirror(mirror, uri, branch, fac);
+        ObjectId tip = mirror.resolve(Constants.R_HEADS + branch);
+        if (tip == null) {
+          return new GitBlob(null, null, null);
+        }
+        try (RevWalk walk = new RevWalk(mirror)) {
+          RevCommit commit = walk.parseCommit(tip);
+          try (TreeWalk tree = TreeWalk.forPath(mirror, path, commit.getTree())) {
+            if (tree == null) {
+              return new GitBlob(tip.name(), null, null);
+            }
+            ObjectId blob = tree.getObjectId(0);
+            ensureBlob(mirror, uri, branch, blob, fac);
+            byte[] content = mirror.open(blob, Constants.OBJ_BLOB).getBytes();
+            return new GitBlob(tip.name(), blob.name(), content);
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Replaces {@code path} with {@code content} on top of the fetched branch tip and pushes the result. The blob, tree
+   * and commit are built in memory inside the mirror, so no clone, checkout or {@code git add .} is involved and the
+   * cost scales with the change rather than the repository.
+   *
+   * @return the id of the pushed commit, or of the current tip when the content is unchanged
+   */
+  public String commitFile(String uri, String branch, String path, byte[] content, String authorName,
+      String authorEmail, String message, CredentialRef cred) throws GitAPIException, IOException {
+    return commitFile(uri, branch, path, content, null, authorName, authorEmail, message, cred);
+  }
+
+  /**
+   * Like {@link #commitFile(String, String, String, byte[], String, String, String, CredentialRef)}, but only commits
+   * on top of {@code expectedParent}. Use {@link ObjectId#zeroId()} to require that the branch does not exist yet, or
+   * {@code null} to commit on whatever the tip is.
+   *
+   * @throws PushRejectedException
+   *           if the branch has moved away from {@code expectedParent} or the push is rejected as non-fast-forward
+   */
+  public String commitFile(String uri, String branch, String path, byte[] content, String expectedParent,
+      String authorName, String authorEmail, String message, CredentialRef cred) throws GitAPIException, IOException {
+    LOG.debugf("Committing %s to %s (branch %s)", path, uri, branch);
+    try (SshSessionFactoryPool.Lease lease = leaseFor(cred)) {
+      SshdSessionFactory fac = lease.factory();
+      return mirrors.withMirror(uri, branch, mirror -> {
+        fetchIntoMirror(mirror, uri, branch, fac);
+        String ref = Constants.R_HEADS + branch;
+        ObjectId parent = mirror.resolve(ref);
+        if (expectedParent != null
+            && !ObjectId.fromString(expectedParent).equals(parent != null ? parent : ObjectId.zeroId())) {
+          throw new PushRejectedException("Branch " + branch + " of " + uri + " moved from " + expectedParent + " to "
+              + (parent != null ? parent.name() : "nothing"));
+        }
+        ObjectId commitId;
+        try (ObjectInserter inserter = mirror.newObjectInserter(); RevWalk walk = new RevWalk(mirror)) {
+          ObjectId blobId = inserter.insert(Constants.OBJ_BLOB, content);
+          RevCommit parentCommit = parent != null ? walk.parseCommit(parent) : null;
+          DirCache index = parentCommit != null
+              ? DirCache.read(walk.getObjectReader(), parentCommit.getTree())
+              : DirCache.newInCore();
+          DirCacheEditor editor = index.editor();
+          editor.add(new DirCacheEditor.PathEdit(path) {
+            @Override
+            public void apply(DirCacheEntry ent) {
+              ent.setFileMode(FileMode.REGULAR_FILE);
+              ent.setObjectId(blobId);
+            }
+          });
+          editor.finish();
+          ObjectId treeId = index.writeTree(inserter);
+          if (parentCommit != null && treeId.equals(parentCommit.getTree())) {
+            LOG.debugf("No changes to %s in %s, skipping commit", path, uri);
+            return parent.name();
+          }
+
+          PersonIdent ident = new PersonIdent(authorName, authorEmail);
+          CommitBuilder commit = new CommitBuilder();
+          commit.setTreeId(treeId);
+          if (parent != null) {
+            commit.setParentId(parent);
+          }
+          commit.setAuthor(ident);
+          commit.setCommitter(ident);
+          commit.setMessage(message);
+          commitId = inserter.insert(commit);
+          inserter.flush();
+        }
+
+        pushCommit(mirror, uri, ref, commitId, fac);
+        RefUpdate update = mirror.updateRef(ref);
+        update.setNewObjectId(commitId);
+        update.forceUpdate();
+        LOG.infof("Pushed commit %s to %s", commitId.name(), uri);
+        return commitId.name();
+      });
+    }
+  }
+
+  private void pushCommit(Repository mirror, String uri, String ref, ObjectId commitId, SshdSessionFactory fac)
+      throws GitAPIException, IOException {
+    try (Git git = Git.wrap(mirror)) {
+      Iterable<PushResult> results = git.push().setRemote(uri).setRefSpecs(new RefSpec(commitId.name() + ":" + ref))
+          .setTransportConfigCallback(callback(fac)).call();
+      for (PushResult result : results) {
+        RemoteRefUpdate update = result.getRemoteUpdate(ref);
+        if (update != null && (update.getStatus() == RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD
+            || update.getStatus() == RemoteRefUpdate.Status.REJECTED_REMOTE_CHANGED)) {
+          throw new PushRejectedException("Push to " + uri + " rejected: " + update.getStatus());
+        }
+        if (update != null && update.getStatus() != RemoteRefUpdate.Status.OK
+            && update.getStatus() != RemoteRefUpdate.Status.UP_TO_DATE) {
+          throw new IOException("Push to " + uri + " rejected: " + update.getStatus()
+              + (update.getMessage() != null ? " (" + update.getMessage() + ")" : ""));
+        }
+      }
+    }
+  }
+
+  /**
+   * Fetches the branch tip with depth 1 and without blobs. Trees are enough to build commits and locate files; blobs
+   * are fetched by {@link #ensureBlob} when read.
+   */
+  private void fetchIntoMirror(Repository mirror, String uri, String branch, SshdSessionFactory fac)
+      throws GitAPIException {
+    RefSpec spec = branchSpec(branch);
+    if (!unfilteredRemotes.contains(uri)) {
+      try {
+        fetch(mirror, uri, spec, fac, NO_BLOBS);
+        return;
+      } catch (TransportException e) {
+        if (!filterUnsupported(e)) {
+          throw e;
+        }
+        LOG.infof("%s does not support partial fetches, fetching complete trees from now on", uri);
+        unfilteredRemotes.add(uri);
+      }
+    }
+    fetch(mirror, uri, spec, fac, null);
+  }
+
+  /**
+   * Makes sure {@code blob} is in the mirror, asking the server for exactly that object. If the server refuses to
+   * serve objects by id, the branch tip is fetched again without a filter.
+   */
+  private void ensureBlob(Repository mirror, String uri, String branch, ObjectId blob, SshdSessionFactory fac)
+      throws GitAPIException, IOException {
+    if (mirror.getObjectDatabase().has(blob)) {
+      return;
+    }
+    LOG.debugf("Fetching blob %s from %s", blob.name(), uri);
+    try {
+      fetch(mirror, uri, new RefSpec(blob.name()), fac, unfilteredRemotes.contains(uri) ? null : NO_BLOBS);
+    } catch (TransportException e) {
+      LOG.debugf("Fetching blob %s from %s failed: %s", blob.name(), uri, e.getMessage());
+    }
+    if (mirror.getObjectDatabase().has(blob)) {
+      return;
+    }
+    // The tip would otherwise be negotiated as already present, so drop the ref before fetching it in full
+    RefUpdate delete = mirror.updateRef(Constants.R_HEADS + branch);
+    delete.setForceUpdate(true);
+    delete.delete();
+    fetch(mirror, uri, branchSpec(branch), fac, null);
+  }
+
+  private static RefSpec branchSpec(String branch) {
+    return new RefSpec("+" + Constants.R_HEADS + branch + ":" + Constants.R_HEADS + branch);
+  }
+
+  private void fetch(Repository mirror, String uri, RefSpec spec, SshdSessionFactory fac, FilterSpec filter)
+      throws GitAPIException {
+    try (Git git = Git.wrap(mirror)) {
+      FetchCommand fetch = git.fetch().setRemote(uri).setRefSpecs(spec)
+          .setTransportConfigCallback(callback(fac, filter));
+      // Depth only applies to commits; a fetch of a single blob by id must not ask for it
+      if (!ObjectId.isId(spec.getSource())) {
+        fetch.setDepth(1);
+      }
+      fetch.call();
+    }
+  }
+
+  private static boolean filterUnsupported(Throwable e) {
+    for (Throwable t = e; t != null; t = t.getCause()) {
+      if (t instanceof PackProtocolException && t.getMessage() != null && t.getMessage().contains("filter")) {
+        return true;
+      }
     }
+    return false;
   }
 }
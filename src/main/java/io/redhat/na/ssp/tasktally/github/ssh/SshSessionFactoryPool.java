@@ -0,0 +1,263 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.eclipse.jgit.transport.sshd.SshdSessionFactory;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Bounded pool of {@link SshdSessionFactory} instances keyed by credential and secret version. A pooled factory keeps
+ * its sshd client, decoded identities and parsed known hosts across Git operations, so repeat operations with the same
+ * credential skip key decoding and parsing. Entries idle for longer than {@code git.ssh.pool.idle-timeout} are
+ * evicted, as are entries whose secret material has changed.
+ */
+@ApplicationScoped
+public class SshSessionFactoryPool {
+  private static final Logger LOG = Logger.getLogger(SshSessionFactoryPool.class);
+  private static final String DEFAULT_KEY = "default";
+
+  private final int maxSize;
+  private final long idleTimeoutNanos;
+  private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  @Inject
+  public SshSessionFactoryPool(@ConfigProperty(name = "git.ssh.pool.max-size", defaultValue = "32") int maxSize,
+      @ConfigProperty(name = "git.ssh.pool.idle-timeout", defaultValue = "PT10M") Duration idleTimeout) {
+    this.maxSize = maxSize;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+  }
+
+  /**
+   * Creates a factory for a credential. Only invoked on a pool miss.
+   */
+  @FunctionalInterface
+  public interface FactoryLoader {
+    /**
+     * @param owned
+     *          accepts resources the factory uses, such as held key pairs; the pool closes them after the factory
+     */
+    SshdSessionFactory create(Consumer<AutoCloseable> owned) throws IOException;
+  }
+
+  /**
+   * A borrowed factory. Closing the lease returns it to the pool; it is never closed while leased.
+   */
+  public final class Lease implements AutoCloseable {
+    private final Entry entry;
+
+    private Lease(Entry entry) {
+      this.entry = entry;
+    }
+
+    public SshdSessionFactory factory() {
+      return entry.factory.join();
+    }
+
+    @Override
+    public void close() {
+      release(entry);
+    }
+  }
+
+  /**
+   * Borrows the factory for {@code cred} whose secret material hashes to the same version as {@code secrets}, creating
+   * it with {@code loader} when absent. A {@code null} credential maps to the shared default factory. The loader runs
+   * outside the pool's lock, so a slow key decode only delays callers waiting for the same credential.
+   */
+  public Lease acquire(CredentialRef cred, List<byte[]> secrets, char[] passphrase, FactoryLoader loader)
+      throws IOException {
+    String key = cred == null ? DEFAULT_KEY : credentialKey(cred);
+    String version = cred == null ? "" : version(secrets, passphrase);
+    List<Entry> evicted = new ArrayList<>();
+    Entry entry;
+    boolean load = false;
+    synchronized (this) {
+      evictIdle(evicted);
+      entry = entries.get(key);
+      if (entry != null && !entry.version.equals(version)) {
+        LOG.debugf("Secret version changed for %s, replacing pooled SSH session factory", key);
+        entries.remove(key);
+        evicted.add(entry);
+        entry = null;
+      }
+      if (entry == null) {
+        // Placeholder that callers for the same credential wait on while the factory is built
+        entry = new Entry(key, version);
+        entries.put(key, entry);
+        load = true;
+        evictOverflow(evicted);
+      }
+      entry.leases++;
+      entry.lastUsed = System.nanoTime();
+    }
+    evicted.forEach(this::retire);
+
+    if (load) {
+      try {
+        entry.factory.complete(loader.create(entry.owned::add));
+        LOG.debugf("Created pooled SSH session factory for %s", key);
+      } catch (IOException | RuntimeException e) {
+        entry.factory.completeExceptionally(e);
+      }
+    }
+    try {
+      entry.factory.join();
+    } catch (CompletionException e) {
+      synchronized (this) {
+        entries.remove(key, entry);
+      }
+      // Closes what a failed loader already took ownership of once the last waiter is done
+      retire(entry);
+      release(entry);
+      if (e.getCause() instanceof IOException io) {
+        throw io;
+      }
+      throw e.getCause() instanceof RuntimeException re ? re : e;
+    }
+    return new Lease(entry);
+  }
+
+  /** Drops any pooled factory for the credential, e.g. after it was deleted. */
+  public void invalidate(CredentialRef cred) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.remove(credentialKey(cred));
+    }
+    if (entry != null) {
+      retire(entry);
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** Drops every pooled factory; leased ones are closed once returned. */
+  public void clear() {
+    List<Entry> all;
+    synchronized (this) {
+      all = new ArrayList<>(entries.values());
+      entries.clear();
+    }
+    all.forEach(this::retire);
+  }
+
+  @PreDestroy
+  void close() {
+    clear();
+  }
+
+  private void release(Entry entry) {
+    boolean closeNow;
+    synchronized (this) {
+      entry.leases--;
+      entry.lastUsed = System.nanoTime();
+      closeNow = entry.retired && entry.leases == 0;
+    }
+    if (closeNow) {
+      dispose(entry);
+    }
+  }
+
+  private void retire(Entry entry) {
+    boolean closeNow;
+    synchronized (this) {
+      entry.retired = true;
+      closeNow = entry.leases == 0;
+    }
+    if (closeNow) {
+      dispose(entry);
+    }
+  }
+
+  private void evictIdle(List<Entry> evicted) {
+    long now = System.nanoTime();
+    entries.values().removeIf(e -> {
+      boolean idle = e.leases == 0 && now - e.lastUsed > idleTimeoutNanos;
+      if (idle) {
+        evicted.add(e);
+      }
+      return idle;
+    });
+  }
+
+  private void evictOverflow(List<Entry> evicted) {
+    var it = entries.values().iterator();
+    while (entries.size() > maxSize && it.hasNext()) {
+      evicted.add(it.next());
+      it.remove();
+    }
+  }
+
+  private void dispose(Entry entry) {
+    SshdSessionFactory factory = entry.factory.isDone() && !entry.factory.isCompletedExceptionally()
+        ? entry.factory.join()
+        : null;
+    if (factory != null) {
+      LOG.debugf("Closing pooled SSH session factory for %s", entry.key);
+      factory.close();
+    }
+    for (AutoCloseable owned : entry.owned) {
+      try {
+        owned.close();
+      } catch (Exception e) {
+        LOG.warnf("Closing a resource of the SSH session factory for %s failed: %s", entry.key, e.getMessage());
+      }
+    }
+  }
+
+  static String credentialKey(CredentialRef cred) {
+    return cred.id != null ? "id:" + cred.id : "name:" + cred.getName();
+  }
+
+  static String version(List<byte[]> secrets, char[] passphrase) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      for (byte[] secret : secrets) {
+        md.update(secret != null ? secret : new byte[0]);
+        md.update((byte) 0);
+      }
+      if (passphrase != null) {
+        md.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(passphrase)));
+      }
+      return HexFormat.of().formatHex(md.digest());
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Entry {
+    private final String key;
+    private final String version;
+    private final CompletableFuture<SshdSessionFactory> factory = new CompletableFuture<>();
+    private final List<AutoCloseable> owned = new CopyOnWriteArrayList<>();
+    private int leases;
+    private long lastUsed;
+    private boolean retired;
+
+    private Entry(String key, String version) {
+      this.key = key;
+      this.version = version;
+    }
+  }
+}
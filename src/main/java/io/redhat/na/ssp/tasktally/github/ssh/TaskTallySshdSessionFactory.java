@@ -1,16 +1,36 @@
 package io.redhat.na.ssp.tasktally.github.ssh;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
-
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.sshd.client.config.hosts.KnownHostEntry;
+import org.apache.sshd.common.NamedResource;
+import org.apache.sshd.common.config.keys.FilePasswordProvider;
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.config.keys.PublicKeyEntryResolver;
+import org.apache.sshd.common.util.security.SecurityUtils;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.sshd.ServerKeyDatabase;
 import org.eclipse.jgit.transport.sshd.SshdSessionFactory;
 import org.eclipse.jgit.transport.sshd.SshdSessionFactoryBuilder;
 import org.jboss.logging.Logger;
 
+import io.redhat.na.ssp.tasktally.secrets.SshKeyValidator;
+
 /**
- * Builds an {@link SshdSessionFactory} from in-memory key material.
+ * Builds an {@link SshdSessionFactory} from in-memory key material. The factory authenticates with the given key pair
+ * only and accepts only host keys from the given known hosts; it never reads or writes key, known_hosts or config
+ * files.
  */
 public final class TaskTallySshdSessionFactory {
   private static final Logger LOG = Logger.getLogger(TaskTallySshdSessionFactory.class);
@@ -21,15 +41,16 @@ public final class TaskTallySshdSessionFactory {
   // Environment variable for known_hosts file location
   private static final String KNOWN_HOSTS_PATH = "KNOWN_HOSTS_FILE";
   private static final String DEFAULT_KNOWN_HOSTS_PATH = System.getProperty("user.home") + "/.ssh/known_hosts";
+  private static final String REVOKED = "revoked";
 
   /**
    * Reads the known_hosts file from the configured location.
-   * 
+   *
    * @return the content of the known_hosts file
    * @throws IOException
    *           if the file cannot be read
    */
-  private static String readKnownHostsFile() throws IOException {
+  private static byte[] readKnownHostsFile() throws IOException {
     String knownHostsPath = System.getenv(KNOWN_HOSTS_PATH);
     if (knownHostsPath == null || knownHostsPath.trim().isEmpty()) {
       knownHostsPath = DEFAULT_KNOWN_HOSTS_PATH;
@@ -41,65 +62,142 @@ public final class TaskTallySshdSessionFactory {
     if (!Files.exists(path)) {
       throw new IOException("Known hosts file not found at " + path);
     }
-
-    String content = Files.readString(path, StandardCharsets.UTF_8);
-    LOG.debugf("Successfully read known_hosts file with %d characters", content.length());
-    return content;
+    return Files.readAllBytes(path);
   }
 
-  public static SshdSessionFactory create(byte[] privateKey, byte[] knownHosts, char[] passphrase, java.io.File sshDir)
+  /**
+   * Parses the private key and known hosts and creates a factory for them. Empty {@code knownHosts} fall back to the
+   * local known_hosts file.
+   */
+  public static SshdSessionFactory create(byte[] privateKey, byte[] knownHosts, char[] passphrase)
       throws IOException {
+    return create(parseIdentities(privateKey, passphrase), parseKnownHosts(knownHosts));
+  }
+
+  /**
+   * Creates a factory that offers {@code identities} for public key authentication and verifies servers against
+   * {@code knownHosts}.
+   */
+  public static SshdSessionFactory create(Iterable<KeyPair> identities, KnownHosts knownHosts) {
     LOG.debug("Creating SSH session factory");
-    java.nio.file.Path tempDir = sshDir != null ? sshDir.toPath() : java.nio.file.Files.createTempDirectory("jgit-ssh");
-    LOG.debugf("Using temp directory: %s", tempDir);
-
-    // Write private key to id_rsa in temp dir
-    java.nio.file.Path keyFile = tempDir.resolve("id_rsa");
-    java.nio.file.Files.write(keyFile, privateKey, java.nio.file.StandardOpenOption.CREATE);
-
-    // Set proper permissions on the private key file (600)
-    keyFile.toFile().setReadable(false, false);
-    keyFile.toFile().setReadable(true, true);
-    keyFile.toFile().setWritable(false, false);
-    keyFile.toFile().setWritable(true, true);
-
-    // Write known_hosts to temp dir
-    java.nio.file.Path knownHostsFile = tempDir.resolve("known_hosts");
-
-    // If knownHosts is null or empty, read from local known_hosts file
-    byte[] hostsToWrite;
-    if (knownHosts == null || knownHosts.length == 0) {
-      String localKnownHosts = readKnownHostsFile();
-      hostsToWrite = localKnownHosts.getBytes(StandardCharsets.UTF_8);
-    } else {
-      // Use the provided known_hosts as-is, since they should already be complete
-      hostsToWrite = knownHosts;
+    // The home directory is required by the builder but nothing below it is read: there is no SSH config, and keys and
+    // host keys come from the providers
+    File home = new File(System.getProperty("user.home"));
+    return new SshdSessionFactoryBuilder().setHomeDirectory(home).setSshDirectory(new File(home, ".ssh"))
+        .setPreferredAuthentications("publickey").setConfigStoreFactory((homeDir, config, user) -> null)
+        .setDefaultKeysProvider(sshDir -> identities).setServerKeyDatabase((homeDir, sshDir) -> knownHosts)
+        .build(null);
+  }
+
+  /**
+   * Decodes an OpenSSH or PEM private key, decrypting it with {@code passphrase} if needed. Ed25519, ECDSA and RSA keys
+   * are supported.
+   */
+  public static List<KeyPair> parseIdentities(byte[] privateKey, char[] passphrase) throws IOException {
+    // The passphrase only becomes a String when an encrypted key asks for it; sshd's decoders take nothing else
+    FilePasswordProvider password = passphrase != null
+        ? (session, resource, retryIndex) -> new String(passphrase)
+        : FilePasswordProvider.EMPTY;
+    try (InputStream in = new ByteArrayInputStream(privateKey)) {
+      Iterable<KeyPair> loaded = SecurityUtils.loadKeyPairIdentities(null, NamedResource.ofName("credential"), in,
+          password);
+      List<KeyPair> keys = new ArrayList<>();
+      if (loaded != null) {
+        for (KeyPair key : loaded) {
+          SshKeyValidator.validatePublicKey(key.getPublic());
+          keys.add(key);
+        }
+      }
+      if (keys.isEmpty()) {
+        throw new IOException("No private key found in credential");
+      }
+      return keys;
+    } catch (GeneralSecurityException | IllegalArgumentException e) {
+      throw new IOException("Cannot decode private key: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Parses known_hosts lines. Empty or {@code null} content falls back to the local known_hosts file.
+   */
+  public static KnownHosts parseKnownHosts(byte[] knownHosts) throws IOException {
+    byte[] content = knownHosts == null || knownHosts.length == 0 ? readKnownHostsFile() : knownHosts;
+    try (InputStream in = new ByteArrayInputStream(content)) {
+      return new KnownHosts(KnownHostEntry.readKnownHostEntries(in, true));
     }
+  }
 
-    java.nio.file.Files.write(knownHostsFile, hostsToWrite, java.nio.file.StandardOpenOption.CREATE);
+  /**
+   * Host keys from known_hosts content, held in memory. Unknown hosts and changed or revoked host keys are rejected.
+   */
+  public static final class KnownHosts implements ServerKeyDatabase {
+    private final List<Known> keys = new ArrayList<>();
 
-    // Set proper permissions on the known_hosts file (644)
-    knownHostsFile.toFile().setReadable(true, true);
-    knownHostsFile.toFile().setWritable(true, true);
+    private record Known(KnownHostEntry entry, PublicKey key) {
+    }
 
-    LOG.debugf("Created known_hosts file with content: %s", new String(hostsToWrite, StandardCharsets.UTF_8));
+    KnownHosts(List<KnownHostEntry> entries) {
+      for (KnownHostEntry entry : entries) {
+        try {
+          PublicKey key = entry.getKeyEntry().resolvePublicKey(null, PublicKeyEntryResolver.IGNORING);
+          if (key != null) {
+            keys.add(new Known(entry, key));
+          }
+        } catch (IOException | GeneralSecurityException e) {
+          LOG.warnf("Skipping unreadable known_hosts entry: %s", e.getMessage());
+        }
+      }
+    }
 
-    // Create SSH config file with strict host key checking enabled
-    // This enables proper host key verification against the known_hosts file
-    java.nio.file.Path configFile = tempDir.resolve("config");
-    String configContent = "Host github.com\n" + "  HostName github.com\n" + "  User git\n" + "  IdentityFile "
-        + keyFile.toString() + "\n" + "  StrictHostKeyChecking yes\n" + "  UserKnownHostsFile "
-        + knownHostsFile.toString() + "\n" + "  LogLevel DEBUG\n";
-    java.nio.file.Files.write(configFile, configContent.getBytes(StandardCharsets.UTF_8),
-        java.nio.file.StandardOpenOption.CREATE);
+    public int size() {
+      return keys.size();
+    }
 
-    LOG.debugf("Created SSH config file with content: %s", configContent);
+    @Override
+    public List<PublicKey> lookup(String connectAddress, InetSocketAddress remoteAddress, Configuration config) {
+      HostAndPort host = HostAndPort.parse(connectAddress);
+      List<PublicKey> matches = new ArrayList<>();
+      for (Known known : keys) {
+        if (known.entry().getMarker() == null && known.entry().isHostMatch(host.host(), host.port())) {
+          matches.add(known.key());
+        }
+      }
+      return matches;
+    }
 
-    SshdSessionFactoryBuilder builder = new SshdSessionFactoryBuilder();
-    builder.setHomeDirectory(tempDir.toFile());
-    builder.setSshDirectory(tempDir.toFile());
+    @Override
+    public boolean accept(String connectAddress, InetSocketAddress remoteAddress, PublicKey serverKey,
+        Configuration config, CredentialsProvider provider) {
+      HostAndPort host = HostAndPort.parse(connectAddress);
+      boolean known = false;
+      for (Known entry : keys) {
+        if (!entry.entry().isHostMatch(host.host(), host.port()) || !KeyUtils.compareKeys(entry.key(), serverKey)) {
+          continue;
+        }
+        if (REVOKED.equals(entry.entry().getMarker())) {
+          LOG.warnf("Host key %s of %s is revoked", KeyUtils.getFingerPrint(serverKey), connectAddress);
+          return false;
+        }
+        known |= entry.entry().getMarker() == null;
+      }
+      if (!known) {
+        LOG.warnf("Rejecting unknown host key %s for %s", KeyUtils.getFingerPrint(serverKey), connectAddress);
+      }
+      return known;
+    }
+  }
 
-    LOG.debug("SSH session factory created successfully with proper host key verification");
-    return builder.build(null);
+  /** A connect address as passed to {@link ServerKeyDatabase}: {@code host} or {@code [host]:port}. */
+  record HostAndPort(String host, int port) {
+    static HostAndPort parse(String connectAddress) {
+      if (connectAddress.startsWith("[")) {
+        int end = connectAddress.indexOf("]:");
+        if (end > 0) {
+          return new HostAndPort(connectAddress.substring(1, end),
+              Integer.parseInt(connectAddress.substring(end + 2)));
+        }
+      }
+      return new HostAndPort(connectAddress, 22);
+    }
   }
 }
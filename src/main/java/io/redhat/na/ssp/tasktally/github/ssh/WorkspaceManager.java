@@ -0,0 +1,225 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Hands out scratch directories for Git operations from a bounded pool. Every directory lives under
+ * {@code git.workspace.base-path} (point it at a tmpfs mount such as {@code /dev/shm} to keep them off disk) and is
+ * deleted as soon as its {@link Workspace} is closed. Leftovers from earlier runs are swept at startup.
+ */
+@ApplicationScoped
+public class WorkspaceManager {
+  private static final Logger LOG = Logger.getLogger(WorkspaceManager.class);
+
+  /** Temp directory prefixes used by earlier versions directly under {@code java.io.tmpdir}. */
+  static final List<String> LEGACY_PREFIXES = List.of("tasktally-outcomes", "tmpl-repo", "git-validate", "jgit-ssh");
+
+  private final Path basePath;
+  private final int maxActive;
+  private final long acquireTimeoutMillis;
+  private final Semaphore permits;
+  private final MeterRegistry registry;
+  private final long measureMillis;
+  private final AtomicLong diskUsage = new AtomicLong();
+  private final ScheduledExecutorService meter;
+
+  @Inject
+  public WorkspaceManager(@ConfigProperty(name = "git.workspace.base-path") Optional<String> basePath,
+      @ConfigProperty(name = "git.workspace.max-active", defaultValue = "16") int maxActive,
+      @ConfigProperty(name = "git.workspace.acquire-timeout", defaultValue = "PT30S") Duration acquireTimeout,
+      @ConfigProperty(name = "git.workspace.disk-usage-interval", defaultValue = "PT1M") Duration measureInterval,
+      MeterRegistry registry) {
+    this.basePath = basePath.filter(p -> !p.isBlank()).map(Paths::get)
+        .orElseGet(() -> Paths.get(System.getProperty("java.io.tmpdir"), "tasktally-workspaces"));
+    this.maxActive = maxActive;
+    this.acquireTimeoutMillis = acquireTimeout.toMillis();
+    this.permits = new Semaphore(maxActive, true);
+    this.registry = registry;
+    this.measureMillis = measureInterval.toMillis();
+    this.meter = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "git-workspace-meter");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  @PostConstruct
+  void registerMetrics() {
+    Gauge.builder("git.workspace.active", this, WorkspaceManager::active)
+        .description("Git scratch directories in use").register(registry);
+    Gauge.builder("git.workspace.disk.usage", diskUsage, AtomicLong::get).baseUnit("bytes")
+        .description("Bytes used by Git scratch directories as of the last measurement").register(registry);
+  }
+
+  /**
+   * A scratch directory. Closing it deletes the directory and returns its slot to the pool.
+   */
+  public final class Workspace implements AutoCloseable {
+    private final Path path;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private Workspace(Path path) {
+      this.path = path;
+    }
+
+    public Path path() {
+      return path;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        deleteRecursively(path);
+        permits.release();
+      }
+    }
+  }
+
+  /**
+   * Waits up to {@code git.workspace.acquire-timeout} for a free slot and creates a new directory named after
+   * {@code prefix}.
+   */
+  public Workspace acquire(String prefix) throws IOException {
+    try {
+      if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        throw new IOException("No Git workspace available, " + maxActive + " already in use");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for a Git workspace", e);
+    }
+    try {
+      Files.createDirectories(basePath);
+      Path dir = Files.createTempDirectory(basePath, prefix);
+      LOG.debugf("Acquired workspace %s", dir);
+      return new Workspace(dir);
+    } catch (IOException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  public int active() {
+    return maxActive - permits.availablePermits();
+  }
+
+  /** Bytes used below the workspace base, measured every {@code git.workspace.disk-usage-interval}. */
+  public long diskUsage() {
+    return diskUsage.get();
+  }
+
+  /** Measures the workspace base, so scrapes of the disk usage gauge never walk it. */
+  void measureDiskUsage() {
+    diskUsage.set(diskUsage(basePath));
+  }
+
+  /** Bytes used by the regular files under {@code dir}, or 0 if it cannot be measured. */
+  static long diskUsage(Path dir) {
+    if (!Files.isDirectory(dir)) {
+      return 0;
+    }
+    try (Stream<Path> paths = Files.walk(dir)) {
+      return paths.filter(Files::isRegularFile).mapToLong(p -> {
+        try {
+          return Files.size(p);
+        } catch (IOException e) {
+          return 0;
+        }
+      }).sum();
+    } catch (IOException | RuntimeException e) {
+      LOG.debugf("Failed to measure %s: %s", dir, e.getMessage());
+      return 0;
+    }
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    sweep(ManagementFactory.getRuntimeMXBean().getStartTime());
+    meter.scheduleWithFixedDelay(this::measureDiskUsage, 0, measureMillis, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void close() {
+    meter.shutdownNow();
+  }
+
+  /**
+   * Removes everything under the workspace base and any legacy temp directories last modified before
+   * {@code startedAtMillis}, i.e. left behind by a previous process.
+   */
+  int sweep(long startedAtMillis) {
+    int removed = 0;
+    removed += sweep(basePath, null, startedAtMillis);
+    removed += sweep(Paths.get(System.getProperty("java.io.tmpdir")), LEGACY_PREFIXES, startedAtMillis);
+    if (removed > 0) {
+      LOG.infof("Removed %d leftover Git workspace directories", removed);
+    }
+    return removed;
+  }
+
+  private static int sweep(Path dir, List<String> prefixes, long before) {
+    if (!Files.isDirectory(dir)) {
+      return 0;
+    }
+    int removed = 0;
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+      for (Path entry : entries) {
+        String name = entry.getFileName().toString();
+        if (prefixes != null && prefixes.stream().noneMatch(name::startsWith)) {
+          continue;
+        }
+        if (Files.isDirectory(entry) && Files.getLastModifiedTime(entry).toMillis() < before) {
+          deleteRecursively(entry);
+          removed++;
+        }
+      }
+    } catch (IOException e) {
+      LOG.warnf("Failed to sweep %s: %s", dir, e.getMessage());
+    }
+    return removed;
+  }
+
+  static void deleteRecursively(Path dir) {
+    if (dir == null || !Files.exists(dir)) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(dir)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+        try {
+          Files.deleteIfExists(p);
+        } catch (IOException e) {
+          LOG.debugf("Failed to delete %s: %s", p, e.getMessage());
+        }
+      });
+    } catch (IOException e) {
+      LOG.debugf("Failed to delete %s: %s", dir, e.getMessage());
+    }
+  }
+}
@@ -10,6 +10,7 @@ import java.time.Instant;
  */
 @Entity
 @Table(name = "credential_refs")
+@Cacheable
 public class CredentialRef extends PanacheEntityBase {
 
   @Id
@@ -42,6 +43,14 @@ public class CredentialRef extends PanacheEntityBase {
   @Column(name = "passphrase_ref")
   public String passphraseRef;
 
+  /** OpenSSH public key line, e.g. "ssh-ed25519 AAAA... comment". */
+  @Column(name = "public_key")
+  public String publicKey;
+
+  /** SHA-256 of the public key blob, Base64. */
+  @Column(name = "fingerprint_sha256")
+  public String fingerprintSha256;
+
   @Column(name = "created_at")
   public Instant createdAt;
 
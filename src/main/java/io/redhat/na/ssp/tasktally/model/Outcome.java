@@ -38,4 +38,24 @@ public class Outcome {
     this.description = description;
     this.notes = notes;
   }
+
+  /**
+   * Returns a deep copy, so cached outcomes can be handed out without sharing mutable state.
+   */
+  public Outcome copy() {
+    Outcome copy = new Outcome();
+    if (phase != null) {
+      copy.phase = new Phase();
+      copy.phase.name = phase.name;
+      copy.phase.track = phase.track;
+      copy.phase.product = phase.product;
+      copy.phase.environment = phase.environment;
+    }
+    copy.prefix = prefix;
+    copy.description = description;
+    copy.notes = notes;
+    copy.createdAt = createdAt;
+    copy.updatedAt = updatedAt;
+    return copy;
+  }
 }
@@ -0,0 +1,76 @@
+package io.redhat.na.ssp.tasktally.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * An outcome change that has been accepted but not yet committed to the template's Git repository.
+ */
+@Entity
+@Table(name = "outcome_outbox")
+public class OutcomeOutboxEntry extends PanacheEntityBase {
+
+  public enum ChangeType {
+    ADD, REPLACE, REMOVE, CLEAR
+  }
+
+  public enum Status {
+    PENDING, DEAD
+  }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  public Long id;
+
+  @Column(name = "template_id", nullable = false)
+  public Long templateId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "change_type", nullable = false)
+  public ChangeType changeType;
+
+  @Column(name = "outcome_index")
+  public Long outcomeIndex;
+
+  @Column
+  public String payload;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  public Status status = Status.PENDING;
+
+  @Column(nullable = false)
+  public int attempts;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  public Instant nextAttemptAt;
+
+  @Column(name = "locked_until")
+  public Instant lockedUntil;
+
+  @Column(name = "last_error")
+  public String lastError;
+
+  @Column(name = "created_at")
+  public Instant createdAt;
+
+  @Column(name = "updated_at")
+  public Instant updatedAt;
+
+  @PrePersist
+  public void prePersist() {
+    if (createdAt == null) {
+      createdAt = Instant.now();
+    }
+    if (nextAttemptAt == null) {
+      nextAttemptAt = createdAt;
+    }
+    updatedAt = Instant.now();
+  }
+
+  @PreUpdate
+  public void preUpdate() {
+    updatedAt = Instant.now();
+  }
+}
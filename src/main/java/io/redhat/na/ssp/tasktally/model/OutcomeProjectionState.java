@@ -0,0 +1,32 @@
+package io.redhat.na.ssp.tasktally.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * The Git commit a template's {@link ProjectedOutcome} rows were last synchronized from.
+ */
+@Entity
+@Table(name = "outcome_projection_state")
+public class OutcomeProjectionState extends PanacheEntityBase {
+
+  @Id
+  @Column(name = "template_id")
+  public Long templateId;
+
+  @Column(name = "commit_id", nullable = false)
+  public String commitId;
+
+  @Column(name = "blob_id")
+  public String blobId;
+
+  @Column(name = "synced_at", nullable = false)
+  public Instant syncedAt;
+
+  @PrePersist
+  @PreUpdate
+  public void touch() {
+    syncedAt = Instant.now();
+  }
+}
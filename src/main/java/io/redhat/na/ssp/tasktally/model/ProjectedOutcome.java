@@ -0,0 +1,63 @@
+package io.redhat.na.ssp.tasktally.model;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/**
+ * One outcome of a template as last read from Git, at its position in the YAML file.
+ */
+@Entity
+@Table(name = "outcome_projection")
+public class ProjectedOutcome extends PanacheEntityBase {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  public Long id;
+
+  @Column(name = "template_id", nullable = false)
+  public Long templateId;
+
+  @Column(nullable = false)
+  public int position;
+
+  @Column(name = "phase_name")
+  public String phaseName;
+
+  @Column
+  public String track;
+
+  @Column
+  public String product;
+
+  @Column
+  public String environment;
+
+  @Column
+  public String prefix;
+
+  @Column
+  public String description;
+
+  @Column
+  public String notes;
+
+  @Column(name = "created_at")
+  public Instant createdAt;
+
+  @Column(name = "updated_at")
+  public Instant updatedAt;
+
+  @PrePersist
+  public void prePersist() {
+    if (createdAt == null) {
+      createdAt = Instant.now();
+    }
+    updatedAt = Instant.now();
+  }
+
+  @PreUpdate
+  public void preUpdate() {
+    updatedAt = Instant.now();
+  }
+}
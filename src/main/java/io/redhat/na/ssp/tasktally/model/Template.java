@@ -7,6 +7,7 @@ import java.time.Instant;
 
 @Entity
 @Table(name = "templates")
+@Cacheable
 public class Template extends PanacheEntityBase {
 
   @Id
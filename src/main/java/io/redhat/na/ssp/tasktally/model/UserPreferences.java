@@ -11,6 +11,7 @@ import org.hibernate.type.SqlTypes;
 
 @Entity
 @Table(name = "user_preferences")
+@Cacheable
 public class UserPreferences extends PanacheEntityBase {
 
   @Id
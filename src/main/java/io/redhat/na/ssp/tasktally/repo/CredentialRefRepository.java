@@ -5,12 +5,14 @@ import io.redhat.na.ssp.tasktally.model.CredentialRef;
 import jakarta.enterprise.context.ApplicationScoped;
 
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 
 @ApplicationScoped
 public class CredentialRefRepository implements PanacheRepository<CredentialRef> {
 
   public Optional<CredentialRef> findByUserAndName(Long userPreferencesId, String name) {
-    return find("userPreferences.id = ?1 and name = ?2", userPreferencesId, name).firstResultOptional();
+    return find("userPreferences.id = ?1 and name = ?2", userPreferencesId, name)
+        .withHint(HibernateHints.HINT_CACHEABLE, true).firstResultOptional();
   }
 
   public java.util.List<CredentialRef> findByUserId(String userId) {
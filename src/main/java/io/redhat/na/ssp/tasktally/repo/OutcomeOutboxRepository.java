@@ -0,0 +1,32 @@
+package io.redhat.na.ssp.tasktally.repo;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.time.Instant;
+import java.util.List;
+
+@ApplicationScoped
+public class OutcomeOutboxRepository implements PanacheRepository<OutcomeOutboxEntry> {
+
+  /**
+   * Templates with at least one pending entry that is due and not leased by another dispatcher.
+   */
+  public List<Long> dueTemplateIds(Instant now, int limit) {
+    return getEntityManager()
+        .createQuery("select e.templateId from OutcomeOutboxEntry e where e.status = :status"
+            + " and e.nextAttemptAt <= :now and (e.lockedUntil is null or e.lockedUntil < :now)"
+            + " group by e.templateId order by min(e.id)", Long.class)
+        .setParameter("status", OutcomeOutboxEntry.Status.PENDING).setParameter("now", now).setMaxResults(limit)
+        .getResultList();
+  }
+
+  public List<OutcomeOutboxEntry> listPending(Long templateId) {
+    return list("templateId = ?1 and status = ?2", Sort.by("id"), templateId, OutcomeOutboxEntry.Status.PENDING);
+  }
+
+  public long countByStatus(OutcomeOutboxEntry.Status status) {
+    return count("status", status);
+  }
+}
@@ -0,0 +1,9 @@
+package io.redhat.na.ssp.tasktally.repo;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
+import io.redhat.na.ssp.tasktally.model.OutcomeProjectionState;
+import jakarta.enterprise.context.ApplicationScoped;
+
+@ApplicationScoped
+public class OutcomeProjectionStateRepository implements PanacheRepositoryBase<OutcomeProjectionState, Long> {
+}
@@ -0,0 +1,119 @@
+package io.redhat.na.ssp.tasktally.repo;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
+import io.redhat.na.ssp.tasktally.model.ProjectedOutcome;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.TypedQuery;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@ApplicationScoped
+public class ProjectedOutcomeRepository implements PanacheRepository<ProjectedOutcome> {
+
+  public List<ProjectedOutcome> listByTemplate(Long templateId) {
+    return list("templateId", Sort.by("position"), templateId);
+  }
+
+  /** Removes the rows at {@code position} and after. */
+  public long deleteFrom(Long templateId, int position) {
+    return delete("templateId = ?1 and position >= ?2", templateId, position);
+  }
+
+  /**
+   * One keyset page of a template's rows. Rows are ordered by {@code sortAttribute} (missing values as the empty
+   * string) and then position, and start after the row with {@code afterKey} and {@code afterPosition}. Keys are
+   * compared in the {@code ucs_basic} collation, i.e. by code point, independent of the database's locale, so the
+   * order matches {@link io.redhat.na.ssp.tasktally.service.OutcomeQuery#apply} and cursors work on either path.
+   *
+   * @param filters
+   *          equality filters by attribute name; names must be attributes of {@link ProjectedOutcome}
+   * @param sortAttribute
+   *          a string attribute of {@link ProjectedOutcome}, or {@code position}
+   */
+  public List<ProjectedOutcome> findPage(Long templateId, Map<String, String> filters, String sortAttribute,
+      boolean descending, Integer afterPosition, String afterKey, int maxResults) {
+    boolean byPosition = "position".equals(sortAttribute);
+    String key = byPosition ? "o.position" : "collate(coalesce(o." + sortAttribute + ", '') as ucs_basic)";
+    String after = descending ? " < " : " > ";
+    String direction = descending ? " desc" : " asc";
+
+    StringBuilder jpql = new StringBuilder("select o from ProjectedOutcome o where o.templateId = :templateId");
+    filters.keySet().forEach(attribute -> jpql.append(" and o.").append(attribute).append(" = :").append(attribute));
+    if (afterPosition != null) {
+      if (byPosition) {
+        jpql.append(" and o.position").append(after).append(":afterPosition");
+      } else {
+        jpql.append(" and (").append(key).append(after).append(":afterKey or (").append(key)
+            .append(" = :afterKey and o.position").append(after).append(":afterPosition))");
+      }
+    }
+    jpql.append(" order by ").append(key).append(direction);
+    if (!byPosition) {
+      jpql.append(", o.position").append(direction);
+    }
+
+    TypedQuery<ProjectedOutcome> query = getEntityManager().createQuery(jpql.toString(), ProjectedOutcome.class)
+        .setParameter("templateId", templateId).setMaxResults(maxResults);
+    filters.forEach(query::setParameter);
+    if (afterPosition != null) {
+      query.setParameter("afterPosition", afterPosition);
+      if (!byPosition) {
+        query.setParameter("afterKey", afterKey);
+      }
+    }
+    return query.getResultList();
+  }
+
+  /**
+   * Projected outcomes of all of a user's templates matching a web-search style query ({@code "quoted phrases"},
+   * {@code or}, {@code -excluded}) on prefix, description and notes, best matches first.
+   */
+  @SuppressWarnings("unchecked")
+  public List<ProjectedOutcome> search(String userId, String text, int maxResults) {
+    return getEntityManager()
+        .createNativeQuery("select o.id, o.template_id, o.position, o.phase_name, o.track, o.product, o.environment,"
+            + " o.prefix, o.description, o.notes, o.created_at, o.updated_at"
+            + " from tasktally.outcome_projection o"
+            + " join tasktally.templates t on t.id = o.template_id"
+            + " join tasktally.user_preferences u on u.id = t.user_preferences_id,"
+            + " websearch_to_tsquery('english', :text) q"
+            + " where u.user_id = :userId and o.search_vector @@ q"
+            + " order by ts_rank(o.search_vector, q) desc, o.template_id, o.position", ProjectedOutcome.class)
+        .setParameter("userId", userId).setParameter("text", text).setMaxResults(maxResults).getResultList();
+  }
+
+  /**
+   * Outcome counts of one template grouped by the given {@code outcome_tally} columns, largest groups first. Each row
+   * holds the column values in order followed by the count.
+   */
+  public List<Object[]> tallyByTemplate(Long templateId, List<String> columns) {
+    return tally(" where t.template_id = :templateId", "templateId", templateId, columns);
+  }
+
+  /**
+   * Outcome counts across all of a user's templates, as {@link #tallyByTemplate}.
+   */
+  public List<Object[]> tallyByUser(String userId, List<String> columns) {
+    return tally(" join tasktally.templates tt on tt.id = t.template_id"
+        + " join tasktally.user_preferences u on u.id = tt.user_preferences_id where u.user_id = :userId", "userId",
+        userId, columns);
+  }
+
+  private List<Object[]> tally(String where, String parameter, Object value, List<String> columns) {
+    String grouped = columns.stream().map(c -> "t." + c).collect(Collectors.joining(", "));
+    StringBuilder sql = new StringBuilder("select ");
+    if (!columns.isEmpty()) {
+      sql.append(grouped).append(", ");
+    }
+    sql.append("coalesce(sum(t.outcome_count), 0) from tasktally.outcome_tally t").append(where);
+    if (!columns.isEmpty()) {
+      sql.append(" group by ").append(grouped).append(" order by ").append(columns.size() + 1).append(" desc, ")
+          .append(grouped);
+    }
+    List<?> rows = getEntityManager().createNativeQuery(sql.toString()).setParameter(parameter, value)
+        .getResultList();
+    return rows.stream().map(row -> row instanceof Object[] values ? values : new Object[] { row }).toList();
+  }
+}
@@ -0,0 +1,21 @@
+package io.redhat.na.ssp.tasktally.repo;
+
+import jakarta.enterprise.context.RequestScoped;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code userId} to {@code UserPreferences.id} mappings resolved during the current request.
+ */
+@RequestScoped
+public class RequestUserIds {
+  private final Map<String, Long> ids = new HashMap<>();
+
+  Long get(String userId) {
+    return ids.get(userId);
+  }
+
+  void put(String userId, Long id) {
+    ids.put(userId, id);
+  }
+}
@@ -0,0 +1,15 @@
+package io.redhat.na.ssp.tasktally.repo;
+
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import io.redhat.na.ssp.tasktally.model.Template;
+
+/**
+ * A template together with the id of the user that owns it and the SSH credential it refers to, as loaded by
+ * {@link TemplateRepository#findAccess(String, Long)}.
+ *
+ * @param credential
+ *          the credential named by {@code template.sshKeyName}, or {@code null} when the template has none or the
+ *          name does not resolve
+ */
+public record TemplateAccess(Template template, Long userPreferencesId, CredentialRef credential) {
+}
@@ -5,15 +5,42 @@ import io.redhat.na.ssp.tasktally.model.Template;
 import jakarta.enterprise.context.ApplicationScoped;
 import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 
 @ApplicationScoped
 public class TemplateRepository implements PanacheRepository<Template> {
 
   public List<Template> listByUser(Long userPreferencesId) {
-    return list("userPreferences.id", userPreferencesId);
+    return find("userPreferences.id", userPreferencesId).withHint(HibernateHints.HINT_CACHEABLE, true).list();
   }
 
   public Optional<Template> findByUserAndId(Long userPreferencesId, Long id) {
-    return find("userPreferences.id = ?1 and id = ?2", userPreferencesId, id).firstResultOptional();
+    return find("userPreferences.id = ?1 and id = ?2", userPreferencesId, id)
+        .withHint(HibernateHints.HINT_CACHEABLE, true).firstResultOptional();
+  }
+
+  /**
+   * Loads a template owned by {@code userId} with its owner id and SSH credential in one query.
+   */
+  public Optional<TemplateAccess> findAccess(String userId, Long id) {
+    return getEntityManager()
+        .createQuery("select new io.redhat.na.ssp.tasktally.repo.TemplateAccess(t, u.id, c) from Template t"
+            + " join t.userPreferences u"
+            + " left join CredentialRef c on c.userPreferences.id = u.id and c.name = t.sshKeyName"
+            + " where u.userId = :userId and t.id = :id", TemplateAccess.class)
+        .setParameter("userId", userId).setParameter("id", id).setHint(HibernateHints.HINT_CACHEABLE, true)
+        .getResultStream().findFirst();
+  }
+
+  /**
+   * Loads all templates owned by {@code userId} with their owner id and SSH credentials in one query.
+   */
+  public List<TemplateAccess> listAccess(String userId) {
+    return getEntityManager()
+        .createQuery("select new io.redhat.na.ssp.tasktally.repo.TemplateAccess(t, u.id, c) from Template t"
+            + " join t.userPreferences u"
+            + " left join CredentialRef c on c.userPreferences.id = u.id and c.name = t.sshKeyName"
+            + " where u.userId = :userId order by t.id", TemplateAccess.class)
+        .setParameter("userId", userId).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
   }
 }
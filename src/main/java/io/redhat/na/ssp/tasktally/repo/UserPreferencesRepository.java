@@ -1,15 +1,42 @@
 package io.redhat.na.ssp.tasktally.repo;
 
+import io.quarkus.arc.Arc;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import io.redhat.na.ssp.tasktally.model.UserPreferences;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
 
 @ApplicationScoped
 public class UserPreferencesRepository implements PanacheRepository<UserPreferences> {
 
+  @Inject
+  RequestUserIds requestUserIds;
+
   public Optional<UserPreferences> findByUserId(String userId) {
-    return find("userId", userId).firstResultOptional();
+    return find("userId", userId).withHint(HibernateHints.HINT_CACHEABLE, true).firstResultOptional();
+  }
+
+  /**
+   * Looks up only the id of a user's preferences. Within an HTTP request the answer is remembered, so repeated lookups
+   * for the same user do not hit the database again.
+   */
+  public Optional<Long> findIdByUserId(String userId) {
+    boolean cached = Arc.container() != null && Arc.container().requestContext().isActive();
+    if (cached) {
+      Long id = requestUserIds.get(userId);
+      if (id != null) {
+        return Optional.of(id);
+      }
+    }
+    Optional<Long> id = getEntityManager()
+        .createQuery("select u.id from UserPreferences u where u.userId = :userId", Long.class)
+        .setParameter("userId", userId).setHint(HibernateHints.HINT_CACHEABLE, true).getResultStream().findFirst();
+    if (cached) {
+      id.ifPresent(found -> requestUserIds.put(userId, found));
+    }
+    return id;
   }
 }
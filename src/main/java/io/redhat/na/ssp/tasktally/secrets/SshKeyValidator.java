@@ -1,11 +1,18 @@
 package io.redhat.na.ssp.tasktally.secrets;
 
 import java.nio.charset.StandardCharsets;
+import java.security.PublicKey;
+import java.util.Set;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.keyprovider.KeyPairProvider;
 
 public final class SshKeyValidator {
   private static final int MAX_PRIVATE_KEY = 10 * 1024; // 10KB
   private static final int MAX_KNOWN_HOSTS = 64 * 1024; // 64KB
   private static final int MAX_PASSPHRASE = 256; // 256B
+  private static final Set<String> KEY_TYPES = Set.of(KeyPairProvider.SSH_ED25519, KeyPairProvider.ECDSA_SHA2_NISTP256,
+      KeyPairProvider.ECDSA_SHA2_NISTP384, KeyPairProvider.ECDSA_SHA2_NISTP521, KeyPairProvider.SSH_RSA);
 
   private SshKeyValidator() {
   }
@@ -21,6 +28,18 @@ public final class SshKeyValidator {
     if (!s.contains("BEGIN") || !s.contains("END")) {
       throw new IllegalArgumentException("Invalid PEM format");
     }
+    if (s.contains("BEGIN DSA PRIVATE KEY")) {
+      throw new IllegalArgumentException("DSA keys are not supported, use ed25519, ecdsa or rsa");
+    }
+  }
+
+  /** Accepts Ed25519, ECDSA (NIST P-256, P-384, P-521) and RSA keys. */
+  public static void validatePublicKey(PublicKey key) {
+    String type = KeyUtils.getKeyType(key);
+    if (type == null || !KEY_TYPES.contains(type)) {
+      throw new IllegalArgumentException("unsupported key type " + (type != null ? type : key.getAlgorithm())
+          + ", use ed25519, ecdsa or rsa");
+    }
   }
 
   public static void validateKnownHosts(byte[] kh) {
@@ -0,0 +1,170 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.jboss.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.quarkus.runtime.StartupEvent;
+import io.redhat.na.ssp.tasktally.github.ssh.KeyPairCache;
+import io.redhat.na.ssp.tasktally.github.ssh.SshSessionFactoryPool;
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.model.UserPreferences;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Keeps in-process caches consistent across replicas. Triggers on {@code templates}, {@code credential_refs} and
+ * {@code user_preferences} publish every committed row change on the {@value #CHANNEL} channel; this listener holds one
+ * connection that {@code LISTEN}s on it and evicts the affected second-level cache entries, cached queries, parsed
+ * outcomes, pooled SSH sessions and decoded SSH keys. Whenever the connection is (re)established all caches are
+ * cleared, since changes made while nobody was listening are unknown.
+ */
+@ApplicationScoped
+public class EntityChangeListener {
+  private static final Logger LOG = Logger.getLogger(EntityChangeListener.class);
+
+  static final String CHANNEL = "tasktally_changes";
+
+  @Inject
+  DataSource dataSource;
+
+  @Inject
+  SessionFactory sessionFactory;
+
+  @Inject
+  GitYamlService gitYamlService;
+
+  @Inject
+  SshSessionFactoryPool sshSessions;
+
+  @Inject
+  KeyPairCache keyPairs;
+
+  @Inject
+  ObjectMapper mapper;
+
+  @ConfigProperty(name = "cache.invalidation.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "cache.invalidation.reconnect-delay", defaultValue = "PT5S")
+  Duration reconnectDelay;
+
+  private volatile boolean running;
+  private Thread thread;
+
+  void onStart(@Observes StartupEvent event) {
+    if (!enabled) {
+      return;
+    }
+    running = true;
+    thread = new Thread(this::listen, "entity-change-listener");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+        statement.execute("LISTEN " + CHANNEL);
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        evictAll();
+        LOG.infof("Listening for entity changes on %s", CHANNEL);
+        while (running) {
+          PGNotification[] notifications = pg.getNotifications(1000);
+          if (notifications != null) {
+            for (PGNotification notification : notifications) {
+              handle(notification.getParameter());
+            }
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        if (!running) {
+          return;
+        }
+        LOG.warnf("Entity change listener failed, reconnecting in %s: %s", reconnectDelay, e.getMessage());
+        try {
+          Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Evicts what a single change notification refers to.
+   */
+  void handle(String payload) {
+    JsonNode change;
+    try {
+      change = mapper.readTree(payload);
+    } catch (JsonProcessingException e) {
+      LOG.warnf("Ignoring malformed change notification %s", payload);
+      return;
+    }
+    String table = change.path("table").asText();
+    long id = change.path("id").asLong();
+    LOG.debugf("%s on %s %d", change.path("op").asText(), table, id);
+
+    Cache cache = sessionFactory.getCache();
+    switch (table) {
+      case "templates" -> {
+        cache.evict(Template.class, id);
+        String repositoryUrl = change.path("repository_url").asText(null);
+        if (repositoryUrl != null) {
+          gitYamlService.invalidate(repositoryUrl);
+        }
+      }
+      case "credential_refs" -> {
+        cache.evict(CredentialRef.class, id);
+        CredentialRef ref = new CredentialRef();
+        ref.id = id;
+        sshSessions.invalidate(ref);
+        keyPairs.invalidate(ref);
+      }
+      case "user_preferences" -> cache.evict(UserPreferences.class, id);
+      default -> {
+        return;
+      }
+    }
+    // Cached queries over these tables may include or omit the changed row
+    cache.evictDefaultQueryRegion();
+  }
+
+  void evictAll() {
+    Cache cache = sessionFactory.getCache();
+    cache.evict(Template.class);
+    cache.evict(CredentialRef.class);
+    cache.evict(UserPreferences.class);
+    cache.evictDefaultQueryRegion();
+    gitYamlService.clear();
+    sshSessions.clear();
+    keyPairs.clear();
+  }
+
+  @PreDestroy
+  void stop() {
+    running = false;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+}
@@ -1,16 +1,22 @@
 package io.redhat.na.ssp.tasktally.service;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
 import org.jboss.logging.Logger;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
+import io.redhat.na.ssp.tasktally.github.ssh.GitBlob;
+import io.redhat.na.ssp.tasktally.github.ssh.PushRejectedException;
 import io.redhat.na.ssp.tasktally.github.ssh.SshGitService;
 import io.redhat.na.ssp.tasktally.model.CredentialRef;
 import io.redhat.na.ssp.tasktally.model.Outcome;
@@ -21,6 +27,7 @@ import jakarta.inject.Inject;
 @ApplicationScoped
 public class GitYamlService {
   private static final Logger LOG = Logger.getLogger(GitYamlService.class);
+  private static final ObjectInserter.Formatter BLOB_IDS = new ObjectInserter.Formatter();
 
   private final ObjectMapper yamlMapper;
 
@@ -31,60 +38,96 @@ public class GitYamlService {
   @Inject
   SshGitService sshGitService;
 
+  @Inject
+  OutcomeCache outcomeCache;
+
+  @Inject
+  OutcomeProjection projection;
+
   public GitYamlService() {
     this.yamlMapper = new ObjectMapper(new YAMLFactory());
   }
 
+  /**
+   * Forgets everything cached for {@code repositoryUrl}, so the next read goes back to the remote.
+   */
+  public void invalidate(String repositoryUrl) {
+    outcomeCache.invalidate(repositoryUrl);
+  }
+
+  /** Forgets every known tip and parsed file. */
+  public void clear() {
+    outcomeCache.clear();
+  }
+
   /**
    * Read outcomes from the template's Git repository
    */
   public List<Outcome> readOutcomes(Template template, CredentialRef credential) {
+    return readSnapshot(template, credential).outcomes();
+  }
+
+  /**
+   * Read outcomes together with the commit they were read at. The remote tip is checked first with {@code ls-remote};
+   * when it still matches the commit the cached outcomes were parsed from, they are returned without fetching anything.
+   * Otherwise the template's {@link OutcomeProjection} is used if it was synchronized at that commit, and only then is
+   * the YAML read from Git and the projection refreshed.
+   */
+  public OutcomeSnapshot readSnapshot(Template template, CredentialRef credential) {
     LOG.debugf("Reading outcomes from Git repository: %s", template.repositoryUrl);
 
     try {
-      // Clone repository to temporary directory
-      Path tempDir = Files.createTempDirectory("tasktally-outcomes");
-      Path repoDir = sshGitService.cloneShallow(template.repositoryUrl,
-          template.defaultBranch != null ? template.defaultBranch : "main", tempDir, credential);
-
-      // Read YAML file
-      Path yamlFile = repoDir.resolve(template.yamlPath);
-      if (!Files.exists(yamlFile)) {
-        LOG.infof("No %s found in repository %s, returning empty list", template.yamlPath, template.repositoryUrl);
-        return new ArrayList<>();
-      }
-
-      String yamlContent = Files.readString(yamlFile);
-      if (yamlContent.trim().isEmpty()) {
-        LOG.infof("Empty %s found in repository %s, returning empty list", template.yamlPath, template.repositoryUrl);
-        return new ArrayList<>();
+      String branch = branchOf(template);
+      OutcomeCache.Source source = source(template, branch);
+      String tip = sshGitService.remoteTip(template.repositoryUrl, branch, credential);
+      OutcomeCache.Tip known = outcomeCache.tip(source);
+      if (tip != null && known != null && tip.equals(known.commitId())) {
+        if (known.blobSha() == null) {
+          LOG.debugf("Branch %s of %s unchanged at %s, %s still missing", branch, template.repositoryUrl, tip,
+              template.yamlPath);
+          return new OutcomeSnapshot(tip, new ArrayList<>());
+        }
+        List<Outcome> cached = outcomeCache.get(cacheKey(template, branch, known.blobSha()));
+        if (cached != null) {
+          LOG.debugf("Branch %s of %s unchanged at %s, using cached outcomes", branch, template.repositoryUrl, tip);
+          return new OutcomeSnapshot(tip, copyOf(cached));
+        }
       }
-
-      Map<String, Object> yamlData = yamlMapper.readValue(yamlContent, Map.class);
-      List<Map<String, Object>> outcomesList = (List<Map<String, Object>>) yamlData.get("outcomes");
-
-      if (outcomesList == null) {
-        LOG.warnf("No 'outcomes' key found in %s, returning empty list", template.yamlPath);
-        return new ArrayList<>();
+      if (tip != null) {
+        Optional<List<Outcome>> projected = readProjection(template, tip);
+        if (projected.isPresent()) {
+          LOG.debugf("Branch %s of %s at %s, using projected outcomes", branch, template.repositoryUrl, tip);
+          return new OutcomeSnapshot(tip, projected.get());
+        }
       }
 
-      List<Outcome> outcomes = new ArrayList<>();
-      for (Map<String, Object> outcomeMap : outcomesList) {
-        Map<String, Object> outcomeData = (Map<String, Object>) outcomeMap.get("outcome");
-        if (outcomeData != null) {
-          outcomes.add(mapToOutcome(outcomeData));
+      // Read the YAML blob straight from the mirror's object database
+      GitBlob blob = sshGitService.readFile(template.repositoryUrl, branch, template.yamlPath, credential);
+      List<Outcome> outcomes;
+      if (blob.exists()) {
+        OutcomeCache.Key key = cacheKey(template, branch, blob.blobId());
+        List<Outcome> cached = outcomeCache.get(key);
+        if (cached != null) {
+          outcomes = copyOf(cached);
+        } else {
+          outcomes = parse(template, blob);
+          outcomeCache.put(key, copyOf(outcomes), blob.content().length);
         }
+      } else {
+        outcomes = parse(template, blob);
       }
-
-      LOG.infof("Read %d outcomes from Git repository %s", outcomes.size(), template.repositoryUrl);
-      return outcomes;
+      if (blob.commitId() != null) {
+        outcomeCache.putTip(source, new OutcomeCache.Tip(blob.commitId(), blob.blobId()));
+        refreshProjection(template, blob.commitId(), blob.blobId(), outcomes);
+      }
+      return new OutcomeSnapshot(blob.commitId(), outcomes);
 
     } catch (IllegalArgumentException e) {
       // Handle SSH key secret resolution failures
       if (e.getMessage() != null && e.getMessage().contains("Secret not found:")) {
         LOG.warnf("SSH key secret not found for repository %s, returning empty list. Error: %s", template.repositoryUrl,
             e.getMessage());
-        return new ArrayList<>();
+        return new OutcomeSnapshot(null, new ArrayList<>());
       }
       LOG.errorf(e, "Failed to read outcomes from Git repository %s", template.repositoryUrl);
       throw new RuntimeException("Failed to read outcomes from Git repository", e);
@@ -94,18 +137,83 @@ public class GitYamlService {
     }
   }
 
+  private List<Outcome> parse(Template template, GitBlob blob) throws IOException {
+    if (!blob.exists()) {
+      LOG.infof("No %s found in repository %s, returning empty list", template.yamlPath, template.repositoryUrl);
+      return new ArrayList<>();
+    }
+
+    String yamlContent = new String(blob.content(), StandardCharsets.UTF_8);
+    if (yamlContent.trim().isEmpty()) {
+      LOG.infof("Empty %s found in repository %s, returning empty list", template.yamlPath, template.repositoryUrl);
+      return new ArrayList<>();
+    }
+
+    Map<String, Object> yamlData = yamlMapper.readValue(yamlContent, Map.class);
+    List<Map<String, Object>> outcomesList = (List<Map<String, Object>>) yamlData.get("outcomes");
+
+    if (outcomesList == null) {
+      LOG.warnf("No 'outcomes' key found in %s, returning empty list", template.yamlPath);
+      return new ArrayList<>();
+    }
+
+    List<Outcome> outcomes = new ArrayList<>();
+    for (Map<String, Object> outcomeMap : outcomesList) {
+      Map<String, Object> outcomeData = (Map<String, Object>) outcomeMap.get("outcome");
+      if (outcomeData != null) {
+        outcomes.add(mapToOutcome(outcomeData));
+      }
+    }
+
+    LOG.infof("Read %d outcomes from Git repository %s", outcomes.size(), template.repositoryUrl);
+    return outcomes;
+  }
+
   /**
    * Write outcomes to the template's Git repository
    */
   public void writeOutcomes(Template template, List<Outcome> outcomes, CredentialRef credential) {
+    try {
+      write(template, outcomes, null, credential);
+    } catch (PushRejectedException e) {
+      LOG.errorf(e, "Failed to write outcomes to Git repository %s", template.repositoryUrl);
+      throw new RuntimeException("Failed to write outcomes to Git repository", e);
+    }
+  }
+
+  /**
+   * Write outcomes as a commit whose parent is {@code baseCommit}, the commit the outcomes were derived from. A
+   * {@code null} base means the branch did not exist.
+   *
+   * @return the id of the pushed commit
+   * @throws PushRejectedException
+   *           if the branch has moved since {@code baseCommit}; the caller should merge and retry
+   */
+  public String writeOutcomes(Template template, List<Outcome> outcomes, String baseCommit, CredentialRef credential)
+      throws PushRejectedException {
+    return writeOutcomes(template, outcomes, baseCommit, credential, List.of());
+  }
+
+  /**
+   * Writes outcomes as {@link #writeOutcomes(Template, List, String, CredentialRef)} on behalf of the outbox entries
+   * {@code delivered}, which are removed when the projection is refreshed to the pushed commit.
+   */
+  public String writeOutcomes(Template template, List<Outcome> outcomes, String baseCommit, CredentialRef credential,
+      List<Long> delivered) throws PushRejectedException {
+    return write(template, outcomes, baseCommit != null ? baseCommit : ObjectId.zeroId().name(), credential,
+        delivered);
+  }
+
+  private String write(Template template, List<Outcome> outcomes, String expectedParent, CredentialRef credential)
+      throws PushRejectedException {
+    return write(template, outcomes, expectedParent, credential, List.of());
+  }
+
+  private String write(Template template, List<Outcome> outcomes, String expectedParent, CredentialRef credential,
+      List<Long> delivered) throws PushRejectedException {
     LOG.debugf("Writing %d outcomes to Git repository: %s", outcomes.size(), template.repositoryUrl);
 
     try {
-      // Clone repository to temporary directory
-      Path tempDir = Files.createTempDirectory("tasktally-outcomes");
-      Path repoDir = sshGitService.cloneShallow(template.repositoryUrl,
-          template.defaultBranch != null ? template.defaultBranch : "main", tempDir, credential);
-
       // Prepare YAML structure
       List<Map<String, Object>> outcomesList = new ArrayList<>();
       for (Outcome outcome : outcomes) {
@@ -116,15 +224,24 @@ public class GitYamlService {
       Map<String, Object> yamlData = Map.of("outcomes", outcomesList);
       String yamlContent = yamlMapper.writeValueAsString(yamlData);
 
-      // Write YAML file
-      Path yamlFile = repoDir.resolve(template.yamlPath);
-      Files.writeString(yamlFile, yamlContent);
-
-      // Commit and push
-      sshGitService.commitAndPush(repoDir, "Task-tally Bot", "bot@tasktally.com", "Update outcomes.yml", credential);
+      // Build the commit in memory on top of the expected tip and push it
+      String branch = branchOf(template);
+      byte[] content = yamlContent.getBytes(StandardCharsets.UTF_8);
+      String commitId = sshGitService.commitFile(template.repositoryUrl, branch, template.yamlPath, content,
+          expectedParent, "Task-tally Bot", "bot@tasktally.com", "Update outcomes.yml", credential);
+      if (commitId != null) {
+        String blobId = BLOB_IDS.idFor(Constants.OBJ_BLOB, content).name();
+        outcomeCache.put(cacheKey(template, branch, blobId), copyOf(outcomes), content.length);
+        outcomeCache.putTip(source(template, branch), new OutcomeCache.Tip(commitId, blobId));
+        refreshProjection(template, commitId, blobId, outcomes, delivered);
+      }
 
       LOG.infof("Successfully wrote %d outcomes to Git repository %s", outcomes.size(), template.repositoryUrl);
+      return commitId;
 
+    } catch (PushRejectedException e) {
+      LOG.infof("Outcome write to %s rejected: %s", template.repositoryUrl, e.getMessage());
+      throw e;
     } catch (IllegalArgumentException e) {
       // Handle SSH key secret resolution failures
       if (e.getMessage() != null && e.getMessage().contains("Secret not found:")) {
@@ -140,6 +257,56 @@ public class GitYamlService {
     }
   }
 
+  /**
+   * Brings the template's {@link OutcomeProjection} up to the remote tip, reading the YAML from Git only when the
+   * projection is behind.
+   *
+   * @return the commit the projection should now be at, or {@code null} if the branch does not exist
+   */
+  public String syncProjection(Template template, CredentialRef credential) {
+    if (template.id != null) {
+      try {
+        String tip = sshGitService.remoteTip(template.repositoryUrl, branchOf(template), credential);
+        if (tip != null && projection.isCurrent(template.id, tip)) {
+          return tip;
+        }
+      } catch (Exception e) {
+        // readSnapshot reports Git failures; projection failures only cost the fast path
+        LOG.debugf("Checking projected outcomes of template %d failed: %s", template.id, e.getMessage());
+      }
+    }
+    return readSnapshot(template, credential).commitId();
+  }
+
+  private Optional<List<Outcome>> readProjection(Template template, String commitId) {
+    if (template.id == null) {
+      return Optional.empty();
+    }
+    try {
+      return projection.read(template.id, commitId);
+    } catch (RuntimeException e) {
+      LOG.warnf("Reading projected outcomes of template %d failed, reading Git: %s", template.id, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  // The projection is a read optimization; failing to update it must not fail the Git read or write
+  private void refreshProjection(Template template, String commitId, String blobId, List<Outcome> outcomes) {
+    refreshProjection(template, commitId, blobId, outcomes, List.of());
+  }
+
+  private void refreshProjection(Template template, String commitId, String blobId, List<Outcome> outcomes,
+      List<Long> delivered) {
+    if (template.id == null) {
+      return;
+    }
+    try {
+      projection.refresh(template.id, commitId, blobId, outcomes, delivered);
+    } catch (RuntimeException e) {
+      LOG.warnf("Refreshing projected outcomes of template %d failed: %s", template.id, e.getMessage());
+    }
+  }
+
   private Outcome mapToOutcome(Map<String, Object> data) {
     Outcome outcome = new Outcome();
 
@@ -167,4 +334,24 @@ public class GitYamlService {
     return Map.of("phase", phaseMap, "prefix", outcome.prefix, "description", outcome.description, "notes",
         outcome.notes);
   }
+
+  private static String branchOf(Template template) {
+    return template.defaultBranch != null ? template.defaultBranch : "main";
+  }
+
+  private static OutcomeCache.Source source(Template template, String branch) {
+    return new OutcomeCache.Source(template.repositoryUrl, branch, template.yamlPath);
+  }
+
+  private static OutcomeCache.Key cacheKey(Template template, String branch, String blobId) {
+    return new OutcomeCache.Key(template.repositoryUrl, branch, template.yamlPath, blobId);
+  }
+
+  private static List<Outcome> copyOf(List<Outcome> outcomes) {
+    List<Outcome> copy = new ArrayList<>(outcomes.size());
+    for (Outcome outcome : outcomes) {
+      copy.add(outcome.copy());
+    }
+    return copy;
+  }
 }
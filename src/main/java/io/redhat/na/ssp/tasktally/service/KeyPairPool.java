@@ -0,0 +1,204 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.keyprovider.KeyPairProvider;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Key pairs generated ahead of time, so generating an SSH credential does not wait for the key generator. A low
+ * priority worker keeps up to {@code ssh.keygen.pool.<algorithm>.size} pairs ready per algorithm, refilling after every
+ * take and every {@code ssh.keygen.pool.refill-interval}. When the pool is empty the pair is generated on the calling
+ * thread.
+ */
+@ApplicationScoped
+public class KeyPairPool {
+  private static final Logger LOG = Logger.getLogger(KeyPairPool.class);
+
+  /** Key types that can be generated, with their OpenSSH key type and size. */
+  public enum Algorithm {
+    RSA("rsa", KeyPairProvider.SSH_RSA, 2048),
+    ED25519("ed25519", KeyPairProvider.SSH_ED25519, 256),
+    ECDSA_P256("ecdsa", KeyPairProvider.ECDSA_SHA2_NISTP256, 256);
+
+    private final String id;
+    private final String keyType;
+    private final int bits;
+
+    Algorithm(String id, String keyType, int bits) {
+      this.id = id;
+      this.keyType = keyType;
+      this.bits = bits;
+    }
+
+    /**
+     * Resolves a requested key type; {@code null} or blank selects RSA.
+     *
+     * @throws IllegalArgumentException
+     *           if the key type is not supported
+     */
+    public static Algorithm of(String id) {
+      if (id == null || id.isBlank()) {
+        return RSA;
+      }
+      String wanted = id.trim().toLowerCase(Locale.ROOT);
+      for (Algorithm algorithm : values()) {
+        if (algorithm.id.equals(wanted) || algorithm.keyType.equals(wanted)) {
+          return algorithm;
+        }
+      }
+      throw new IllegalArgumentException("keyType must be rsa, ed25519 or ecdsa");
+    }
+
+    KeyPair generate() throws GeneralSecurityException {
+      return KeyUtils.generateKeyPair(keyType, bits);
+    }
+
+    String tag() {
+      return id;
+    }
+  }
+
+  private final Map<Algorithm, Pool> pools = new EnumMap<>(Algorithm.class);
+  private final boolean enabled;
+  private final long refillMillis;
+  private final ScheduledExecutorService worker;
+  private final AtomicBoolean refilling = new AtomicBoolean();
+
+  @Inject
+  public KeyPairPool(MeterRegistry registry,
+      @ConfigProperty(name = "ssh.keygen.pool.enabled", defaultValue = "true") boolean enabled,
+      @ConfigProperty(name = "ssh.keygen.pool.refill-interval", defaultValue = "PT5S") Duration refillInterval,
+      @ConfigProperty(name = "ssh.keygen.pool.rsa.size", defaultValue = "8") int rsaSize,
+      @ConfigProperty(name = "ssh.keygen.pool.ed25519.size", defaultValue = "4") int ed25519Size,
+      @ConfigProperty(name = "ssh.keygen.pool.ecdsa.size", defaultValue = "4") int ecdsaSize) {
+    this(registry, enabled, refillInterval, Map.of(Algorithm.RSA, rsaSize, Algorithm.ED25519, ed25519Size,
+        Algorithm.ECDSA_P256, ecdsaSize));
+  }
+
+  KeyPairPool(MeterRegistry registry, boolean enabled, Duration refillInterval, Map<Algorithm, Integer> sizes) {
+    this.enabled = enabled;
+    this.refillMillis = refillInterval.toMillis();
+    for (Algorithm algorithm : Algorithm.values()) {
+      pools.put(algorithm, new Pool(algorithm, sizes.getOrDefault(algorithm, 0), registry));
+    }
+    this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "ssh-keygen-pool");
+      t.setDaemon(true);
+      t.setPriority(Thread.MIN_PRIORITY);
+      return t;
+    });
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    if (enabled) {
+      worker.scheduleWithFixedDelay(this::scheduleRefill, 0, refillMillis, TimeUnit.MILLISECONDS);
+      LOG.infof("SSH key pair pool started, refilling every %d ms", refillMillis);
+    }
+  }
+
+  /**
+   * Takes a ready key pair, or generates one on the calling thread when none is ready. Every pair is handed out once.
+   */
+  public KeyPair take(Algorithm algorithm) throws GeneralSecurityException {
+    Pool pool = pools.get(algorithm);
+    KeyPair pair = pool.ready.poll();
+    scheduleRefill();
+    if (pair != null) {
+      pool.pooled.increment();
+      return pair;
+    }
+    pool.inline.increment();
+    LOG.debugf("No pooled %s key pair ready, generating inline", algorithm);
+    return algorithm.generate();
+  }
+
+  /** Number of ready key pairs for the algorithm. */
+  public int depth(Algorithm algorithm) {
+    return pools.get(algorithm).ready.size();
+  }
+
+  private void scheduleRefill() {
+    if (enabled && refilling.compareAndSet(false, true)) {
+      try {
+        worker.execute(() -> {
+          try {
+            refill();
+          } finally {
+            refilling.set(false);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        refilling.set(false);
+      }
+    }
+  }
+
+  /** Generates key pairs until every pool holds its configured number. */
+  void refill() {
+    for (Pool pool : pools.values()) {
+      try {
+        while (pool.ready.size() < pool.size && !Thread.currentThread().isInterrupted()) {
+          if (!pool.ready.offer(pool.algorithm.generate())) {
+            break;
+          }
+          pool.generated.increment();
+        }
+      } catch (GeneralSecurityException | RuntimeException e) {
+        LOG.warnf("Pre-generating %s key pairs failed: %s", pool.algorithm, e.getMessage());
+      }
+    }
+  }
+
+  @PreDestroy
+  void close() {
+    worker.shutdownNow();
+    pools.values().forEach(p -> p.ready.clear());
+  }
+
+  private static final class Pool {
+    private final Algorithm algorithm;
+    private final int size;
+    private final BlockingQueue<KeyPair> ready;
+    private final Counter generated;
+    private final Counter pooled;
+    private final Counter inline;
+
+    private Pool(Algorithm algorithm, int size, MeterRegistry registry) {
+      this.algorithm = algorithm;
+      this.size = size;
+      this.ready = new ArrayBlockingQueue<>(Math.max(1, size));
+      Gauge.builder("ssh.keygen.pool.depth", ready, BlockingQueue::size).tag("algorithm", algorithm.tag())
+          .description("Pre-generated key pairs ready to be handed out").register(registry);
+      this.generated = Counter.builder("ssh.keygen.pool.generated").tag("algorithm", algorithm.tag())
+          .description("Key pairs generated by the refill worker").register(registry);
+      this.pooled = Counter.builder("ssh.keygen.pool.takes").tag("algorithm", algorithm.tag())
+          .tag("result", "pooled").register(registry);
+      this.inline = Counter.builder("ssh.keygen.pool.takes").tag("algorithm", algorithm.tag())
+          .tag("result", "inline").register(registry);
+    }
+  }
+}
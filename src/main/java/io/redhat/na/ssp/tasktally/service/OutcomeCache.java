@@ -0,0 +1,155 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Parsed outcome lists keyed by the blob they were parsed from. A blob id identifies the file content exactly, so
+ * entries never go stale; they are only dropped by size- and weight-based LRU eviction. Cached lists are immutable and
+ * their outcomes must not be modified; callers hand out copies. The cache also remembers the last commit each file was
+ * seen at, bounded by the same {@code outcomes.cache.max-entries} in LRU order.
+ */
+@ApplicationScoped
+public class OutcomeCache {
+  private static final Logger LOG = Logger.getLogger(OutcomeCache.class);
+
+  /** Identifies one version of an outcomes file. */
+  public record Key(String repositoryUrl, String branch, String yamlPath, String blobSha) {
+  }
+
+  /** Identifies an outcomes file on a branch, whatever its version. */
+  public record Source(String repositoryUrl, String branch, String yamlPath) {
+  }
+
+  /** Commit a file was last seen at, and its blob id ({@code null} when the file did not exist). */
+  public record Tip(String commitId, String blobSha) {
+  }
+
+  /** Point-in-time cache statistics. */
+  public record Stats(long hits, long misses, long evictions, int size, long weight) {
+  }
+
+  private final int maxEntries;
+  private final long maxWeight;
+  private final MeterRegistry registry;
+  private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<Source, Tip> tips = new LinkedHashMap<>(16, 0.75f, true);
+  private long weight;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  @Inject
+  public OutcomeCache(@ConfigProperty(name = "outcomes.cache.max-entries", defaultValue = "1000") int maxEntries,
+      @ConfigProperty(name = "outcomes.cache.max-weight", defaultValue = "33554432") long maxWeight,
+      MeterRegistry registry) {
+    this.maxEntries = maxEntries;
+    this.maxWeight = maxWeight;
+    this.registry = registry;
+  }
+
+  @PostConstruct
+  void registerMetrics() {
+    FunctionCounter.builder("cache.gets", this, c -> c.stats().hits()).tag("cache", "outcomes").tag("result", "hit")
+        .register(registry);
+    FunctionCounter.builder("cache.gets", this, c -> c.stats().misses()).tag("cache", "outcomes")
+        .tag("result", "miss").register(registry);
+    FunctionCounter.builder("cache.evictions", this, c -> c.stats().evictions()).tag("cache", "outcomes")
+        .register(registry);
+    Gauge.builder("cache.size", this, c -> c.stats().size()).tag("cache", "outcomes").register(registry);
+    Gauge.builder("cache.weight", this, c -> c.stats().weight()).tag("cache", "outcomes").baseUnit("bytes")
+        .register(registry);
+  }
+
+  /**
+   * @return the cached outcomes, or {@code null} on a miss
+   */
+  public synchronized List<Outcome> get(Key key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.outcomes;
+  }
+
+  /**
+   * Caches a parsed list. {@code weight} is the size of the source file in bytes; lists heavier than the whole cache
+   * are not stored.
+   */
+  public synchronized void put(Key key, List<Outcome> outcomes, long weight) {
+    if (weight > maxWeight) {
+      LOG.debugf("Not caching %s, weight %d exceeds limit %d", key.yamlPath(), weight, maxWeight);
+      return;
+    }
+    Entry previous = entries.put(key, new Entry(List.copyOf(outcomes), weight));
+    if (previous != null) {
+      this.weight -= previous.weight;
+    }
+    this.weight += weight;
+    Iterator<Entry> it = entries.values().iterator();
+    while ((entries.size() > maxEntries || this.weight > maxWeight) && it.hasNext()) {
+      this.weight -= it.next().weight;
+      it.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * @return the last known tip of the file, or {@code null}
+   */
+  public synchronized Tip tip(Source source) {
+    return tips.get(source);
+  }
+
+  /** Records the commit a file was seen at, forgetting the least recently used tips beyond the entry limit. */
+  public synchronized void putTip(Source source, Tip tip) {
+    tips.put(source, tip);
+    Iterator<Tip> it = tips.values().iterator();
+    while (tips.size() > maxEntries && it.hasNext()) {
+      it.next();
+      it.remove();
+    }
+  }
+
+  /** Drops every cached version and tip of files in the given repository. */
+  public synchronized void invalidate(String repositoryUrl) {
+    tips.keySet().removeIf(source -> source.repositoryUrl().equals(repositoryUrl));
+    Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Key, Entry> e = it.next();
+      if (e.getKey().repositoryUrl().equals(repositoryUrl)) {
+        weight -= e.getValue().weight;
+        it.remove();
+      }
+    }
+  }
+
+  /** Drops every cached list and tip. */
+  public synchronized void clear() {
+    entries.clear();
+    tips.clear();
+    weight = 0;
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(hits, misses, evictions, entries.size(), weight);
+  }
+
+  private record Entry(List<Outcome> outcomes, long weight) {
+  }
+}
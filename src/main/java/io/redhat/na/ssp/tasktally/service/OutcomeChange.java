@@ -0,0 +1,66 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.util.List;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * A single mutation of a template's outcome list. Changes validate before they modify the list, so a failing change
+ * leaves the snapshot untouched and the rest of its batch can still be committed.
+ */
+public sealed interface OutcomeChange {
+
+  /**
+   * Applies the change to {@code outcomes} in place.
+   *
+   * @return the resulting outcome, or {@code null} for removals
+   * @throws NotFoundException
+   *           if the change refers to an index that does not exist
+   */
+  Outcome apply(List<Outcome> outcomes);
+
+  /** Appends an outcome. */
+  record Add(Outcome outcome) implements OutcomeChange {
+    @Override
+    public Outcome apply(List<Outcome> outcomes) {
+      outcomes.add(outcome);
+      return outcome;
+    }
+  }
+
+  /** Replaces the outcome at {@code index}. */
+  record Replace(long index, Outcome outcome) implements OutcomeChange {
+    @Override
+    public Outcome apply(List<Outcome> outcomes) {
+      checkIndex(index, outcomes);
+      outcomes.set((int) index, outcome);
+      return outcome;
+    }
+  }
+
+  /** Removes the outcome at {@code index}. */
+  record Remove(long index) implements OutcomeChange {
+    @Override
+    public Outcome apply(List<Outcome> outcomes) {
+      checkIndex(index, outcomes);
+      outcomes.remove((int) index);
+      return null;
+    }
+  }
+
+  /** Removes all outcomes. */
+  record Clear() implements OutcomeChange {
+    @Override
+    public Outcome apply(List<Outcome> outcomes) {
+      outcomes.clear();
+      return null;
+    }
+  }
+
+  private static void checkIndex(long index, List<Outcome> outcomes) {
+    if (index < 0 || index >= outcomes.size()) {
+      throw new NotFoundException();
+    }
+  }
+}
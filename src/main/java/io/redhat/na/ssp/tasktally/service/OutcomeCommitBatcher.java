@@ -0,0 +1,279 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.redhat.na.ssp.tasktally.github.ssh.PushRejectedException;
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.Template;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Coalesces outcome mutations per template. The first change for a template opens a batch that stays open for
+ * {@code outcomes.batch.window}; every change submitted meanwhile joins it. The batch is then applied in submission
+ * order to a single snapshot and pushed as one commit, and each caller receives the result of its own change. A
+ * template's slot exists only while it has changes waiting for a flush.
+ */
+@ApplicationScoped
+public class OutcomeCommitBatcher {
+  private static final Logger LOG = Logger.getLogger(OutcomeCommitBatcher.class);
+
+  private final GitYamlService gitYamlService;
+  private final RepositoryWriteLocks writeLocks;
+  private final long windowMillis;
+  private final int maxAttempts;
+  private final long backoffMillis;
+  private final long timeoutMillis;
+  private final ScheduledExecutorService executor;
+  private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+
+  @Inject
+  public OutcomeCommitBatcher(GitYamlService gitYamlService, RepositoryWriteLocks writeLocks,
+      @ConfigProperty(name = "outcomes.batch.window", defaultValue = "PT0.05S") Duration window,
+      @ConfigProperty(name = "outcomes.batch.threads", defaultValue = "4") int threads,
+      @ConfigProperty(name = "outcomes.write.max-attempts", defaultValue = "5") int maxAttempts,
+      @ConfigProperty(name = "outcomes.write.backoff", defaultValue = "PT0.1S") Duration backoff,
+      @ConfigProperty(name = "outcomes.write.timeout", defaultValue = "PT60S") Duration timeout) {
+    this.gitYamlService = gitYamlService;
+    this.writeLocks = writeLocks;
+    this.windowMillis = window.toMillis();
+    this.maxAttempts = maxAttempts;
+    this.backoffMillis = Math.max(1, backoff.toMillis());
+    this.timeoutMillis = timeout.toMillis();
+    this.executor = Executors.newScheduledThreadPool(threads, r -> {
+      Thread t = new Thread(r, "outcome-batcher");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  /**
+   * Queues {@code change} for the template and waits up to {@code outcomes.write.timeout} until the batch containing
+   * it has been pushed.
+   *
+   * @return the outcome produced by the change, or {@code null} for removals
+   * @throws WebApplicationException
+   *           with status 504 if the batch was not pushed in time; the change stays queued and may still be committed
+   */
+  public Outcome submit(Template template, CredentialRef credential, OutcomeChange change) {
+    return await(submitAll(template, credential, List.of(change)).get(0), timeoutMillis);
+  }
+
+  /**
+   * Queues {@code changes} for the template as one contiguous run, so they are applied in order within the same
+   * batch, and returns without waiting. A change failing with anything but {@link NotFoundException} stops the run:
+   * the changes after it are not applied and fail with {@link IllegalStateException}.
+   *
+   * @return one future per change, completed with the outcome it produced once the batch has been pushed
+   */
+  public List<CompletableFuture<Outcome>> submitAll(Template template, CredentialRef credential,
+      List<OutcomeChange> changes) {
+    return submitAll(template, credential, changes, null);
+  }
+
+  /**
+   * Queues changes read from the outbox, as {@link #submitAll(Template, CredentialRef, List)}. The entries of the
+   * changes that are pushed are removed together with the projection refresh of the new commit, see
+   * {@link OutcomeProjection#refresh(Long, String, String, List, List)}.
+   *
+   * @param outboxIds
+   *          the outbox entry of each change, or {@code null}
+   */
+  public List<CompletableFuture<Outcome>> submitAll(Template template, CredentialRef credential,
+      List<OutcomeChange> changes, List<Long> outboxIds) {
+    List<CompletableFuture<Outcome>> results = new ArrayList<>(changes.size());
+    for (OutcomeChange change : changes) {
+      results.add(new CompletableFuture<>());
+    }
+    Object run = new Object();
+    while (true) {
+      Slot slot = slots.computeIfAbsent(template.id, id -> new Slot());
+      synchronized (slot) {
+        // A flush drained and removed this slot after we looked it up; join the next one instead
+        if (slot.drained) {
+          continue;
+        }
+        slot.template = template;
+        slot.credential = credential;
+        for (int i = 0; i < changes.size(); i++) {
+          slot.pending.add(new Pending(changes.get(i), results.get(i), run,
+              outboxIds != null ? outboxIds.get(i) : null));
+        }
+        if (!slot.scheduled) {
+          slot.scheduled = true;
+          executor.schedule(() -> flush(slot), windowMillis, TimeUnit.MILLISECONDS);
+        }
+      }
+      return results;
+    }
+  }
+
+  /** Number of templates with changes waiting for a flush. */
+  int openSlots() {
+    return slots.size();
+  }
+
+  private void flush(Slot slot) {
+    String repositoryUrl;
+    synchronized (slot) {
+      repositoryUrl = slot.template.repositoryUrl;
+    }
+    // Writes to one repository are ordered; changes arriving while we wait still join this batch
+    writeLocks.withLock(repositoryUrl, () -> {
+      Template template;
+      CredentialRef credential;
+      List<Pending> batch;
+      synchronized (slot) {
+        template = slot.template;
+        credential = slot.credential;
+        batch = new ArrayList<>(slot.pending);
+        slot.pending.clear();
+        slot.drained = true;
+        slots.remove(template.id, slot);
+      }
+      if (!batch.isEmpty()) {
+        apply(template, credential, batch);
+      }
+      return null;
+    });
+  }
+
+  private void apply(Template template, CredentialRef credential, List<Pending> batch) {
+    LOG.debugf("Applying %d outcome changes to template %d", batch.size(), template.id);
+    OutcomeSnapshot snapshot;
+    try {
+      snapshot = gitYamlService.readSnapshot(template, credential);
+    } catch (RuntimeException e) {
+      batch.forEach(p -> p.result().completeExceptionally(e));
+      return;
+    }
+
+    List<Outcome> outcomes = new ArrayList<>(snapshot.outcomes());
+    List<Pending> applied = new ArrayList<>();
+    List<Outcome> results = new ArrayList<>();
+    Set<Object> stopped = new HashSet<>();
+    for (Pending pending : batch) {
+      if (stopped.contains(pending.run())) {
+        pending.result().completeExceptionally(new IllegalStateException("Not applied after an earlier change failed"));
+        continue;
+      }
+      try {
+        results.add(pending.change().apply(outcomes));
+        applied.add(pending);
+      } catch (NotFoundException e) {
+        pending.result().completeExceptionally(e);
+      } catch (RuntimeException e) {
+        stopped.add(pending.run());
+        pending.result().completeExceptionally(e);
+      }
+    }
+    if (applied.isEmpty()) {
+      return;
+    }
+
+    List<Long> delivered = applied.stream().map(Pending::outboxId).filter(Objects::nonNull).toList();
+    try {
+      push(template, credential, snapshot, outcomes, delivered);
+    } catch (RuntimeException e) {
+      applied.forEach(p -> p.result().completeExceptionally(e));
+      return;
+    }
+    LOG.infof("Committed %d outcome changes to template %d in one push", applied.size(), template.id);
+    for (int i = 0; i < applied.size(); i++) {
+      applied.get(i).result().complete(results.get(i));
+    }
+  }
+
+  /**
+   * Pushes {@code outcomes} on top of the snapshot they were derived from. If someone else pushed first, the new tip
+   * is read and our changes are merged onto it as a three-way merge of the parsed lists, then pushed again with
+   * exponential backoff.
+   */
+  private void push(Template template, CredentialRef credential, OutcomeSnapshot base, List<Outcome> outcomes,
+      List<Long> delivered) {
+    List<Outcome> ours = outcomes;
+    for (int attempt = 1;; attempt++) {
+      try {
+        gitYamlService.writeOutcomes(template, ours, base.commitId(), credential, delivered);
+        return;
+      } catch (PushRejectedException e) {
+        if (attempt >= maxAttempts) {
+          throw new IllegalStateException("Gave up writing outcomes for template " + template.id + " after " + attempt
+              + " rejected pushes", e);
+        }
+        backoff(attempt);
+        OutcomeSnapshot theirs = gitYamlService.readSnapshot(template, credential);
+        LOG.infof("Remote moved to %s while writing template %d, merging (attempt %d)", theirs.commitId(),
+            template.id, attempt);
+        ours = OutcomeMerger.merge(base.outcomes(), ours, theirs.outcomes());
+        base = theirs;
+      }
+    }
+  }
+
+  private void backoff(int attempt) {
+    long cap = backoffMillis << Math.min(attempt - 1, 10);
+    long delay = ThreadLocalRandom.current().nextLong(cap / 2, cap + 1);
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while retrying outcome write", e);
+    }
+  }
+
+  private static Outcome await(CompletableFuture<Outcome> result, long timeoutMillis) {
+    try {
+      return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      throw new WebApplicationException("Outcome change was not committed within " + timeoutMillis
+          + " ms; it may still be applied", Response.Status.GATEWAY_TIMEOUT);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for outcome commit", e);
+    }
+  }
+
+  @PreDestroy
+  void close() {
+    executor.shutdown();
+  }
+
+  private record Pending(OutcomeChange change, CompletableFuture<Outcome> result, Object run, Long outboxId) {
+  }
+
+  private static final class Slot {
+    private final List<Pending> pending = new ArrayList<>();
+    private Template template;
+    private CredentialRef credential;
+    private boolean scheduled;
+    private boolean drained;
+  }
+}
@@ -0,0 +1,15 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import jakarta.ws.rs.ClientErrorException;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Raised when a concurrent edit changed the same outcome as the rejected write, so it cannot be merged automatically.
+ */
+public class OutcomeConflictException extends ClientErrorException {
+  private static final long serialVersionUID = 1L;
+
+  public OutcomeConflictException(String message) {
+    super(message, Response.Status.CONFLICT);
+  }
+}
@@ -0,0 +1,162 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+
+/**
+ * Three-way merge of outcome lists. Each side is diffed against the common base by outcome content (timestamps are
+ * ignored), giving hunks that replace a range of base outcomes. Hunks from different sides that touch disjoint base
+ * ranges are combined; overlapping hunks merge only when both sides made the same change. Two sides inserting at the
+ * same position is not a conflict: their outcomes are kept first, ours follow.
+ */
+final class OutcomeMerger {
+
+  private OutcomeMerger() {
+  }
+
+  /**
+   * @return the merged list; unchanged outcomes are the base instances, changed ones come from the side that changed
+   *         them
+   * @throws OutcomeConflictException
+   *           if both sides changed the same base outcome differently
+   */
+  static List<Outcome> merge(List<Outcome> base, List<Outcome> ours, List<Outcome> theirs) {
+    List<Hunk> hunks = new ArrayList<>();
+    hunks.addAll(diff(base, theirs, true));
+    hunks.addAll(diff(base, ours, false));
+    // Theirs first on ties, so concurrent appends keep the order in which they reached the remote
+    hunks.sort(Comparator.comparingInt(Hunk::start).thenComparingInt(Hunk::end).thenComparing(h -> !h.theirs()));
+
+    List<Outcome> merged = new ArrayList<>();
+    int pos = 0;
+    int i = 0;
+    while (i < hunks.size()) {
+      int start = hunks.get(i).start();
+      int end = hunks.get(i).end();
+      List<Hunk> group = new ArrayList<>();
+      group.add(hunks.get(i++));
+      while (i < hunks.size() && hunks.get(i).start() < end && start < hunks.get(i).end()) {
+        end = Math.max(end, hunks.get(i).end());
+        group.add(hunks.get(i++));
+      }
+
+      merged.addAll(base.subList(pos, start));
+      List<Outcome> fromTheirs = resolve(base, start, end, group, true);
+      List<Outcome> fromOurs = resolve(base, start, end, group, false);
+      if (fromTheirs == null) {
+        merged.addAll(fromOurs);
+      } else if (fromOurs == null || sameOutcomes(fromOurs, fromTheirs)) {
+        merged.addAll(fromTheirs);
+      } else {
+        throw new OutcomeConflictException("Outcomes " + start + " to " + (end - 1)
+            + " were changed concurrently; reload and apply the change again");
+      }
+      pos = end;
+    }
+    merged.addAll(base.subList(pos, base.size()));
+    return merged;
+  }
+
+  static boolean sameOutcome(Outcome a, Outcome b) {
+    if (a == b) {
+      return true;
+    }
+    if (a == null || b == null) {
+      return false;
+    }
+    return samePhase(a.phase, b.phase) && Objects.equals(a.prefix, b.prefix)
+        && Objects.equals(a.description, b.description) && Objects.equals(a.notes, b.notes);
+  }
+
+  private static boolean samePhase(Outcome.Phase a, Outcome.Phase b) {
+    if (a == null || b == null) {
+      return a == b;
+    }
+    return Objects.equals(a.name, b.name) && Objects.equals(a.track, b.track) && Objects.equals(a.product, b.product)
+        && Objects.equals(a.environment, b.environment);
+  }
+
+  private static boolean sameOutcomes(List<Outcome> a, List<Outcome> b) {
+    if (a.size() != b.size()) {
+      return false;
+    }
+    for (int i = 0; i < a.size(); i++) {
+      if (!sameOutcome(a.get(i), b.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Applies one side's hunks of a group to {@code base[start, end)}, or returns {@code null} if that side has none.
+   */
+  private static List<Outcome> resolve(List<Outcome> base, int start, int end, List<Hunk> group, boolean theirs) {
+    List<Outcome> result = null;
+    int pos = start;
+    for (Hunk hunk : group) {
+      if (hunk.theirs() != theirs) {
+        continue;
+      }
+      if (result == null) {
+        result = new ArrayList<>();
+      }
+      result.addAll(base.subList(pos, hunk.start()));
+      result.addAll(hunk.replacement());
+      pos = hunk.end();
+    }
+    if (result != null) {
+      result.addAll(base.subList(pos, end));
+    }
+    return result;
+  }
+
+  /**
+   * Diffs {@code side} against {@code base} using the longest common subsequence of equal outcomes.
+   */
+  private static List<Hunk> diff(List<Outcome> base, List<Outcome> side, boolean theirs) {
+    int n = base.size();
+    int m = side.size();
+    int[][] lcs = new int[n + 1][m + 1];
+    for (int i = n - 1; i >= 0; i--) {
+      for (int j = m - 1; j >= 0; j--) {
+        lcs[i][j] = sameOutcome(base.get(i), side.get(j)) ? lcs[i + 1][j + 1] + 1
+            : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+      }
+    }
+
+    List<Hunk> hunks = new ArrayList<>();
+    int i = 0;
+    int j = 0;
+    int hunkBase = 0;
+    int hunkSide = 0;
+    while (i < n || j < m) {
+      if (i < n && j < m && sameOutcome(base.get(i), side.get(j))) {
+        addHunk(hunks, hunkBase, i, side.subList(hunkSide, j), theirs);
+        i++;
+        j++;
+        hunkBase = i;
+        hunkSide = j;
+      } else if (j < m && (i == n || lcs[i][j + 1] >= lcs[i + 1][j])) {
+        j++;
+      } else {
+        i++;
+      }
+    }
+    addHunk(hunks, hunkBase, n, side.subList(hunkSide, m), theirs);
+    return hunks;
+  }
+
+  private static void addHunk(List<Hunk> hunks, int start, int end, List<Outcome> replacement, boolean theirs) {
+    if (start < end || !replacement.isEmpty()) {
+      hunks.add(new Hunk(start, end, List.copyOf(replacement), theirs));
+    }
+  }
+
+  private record Hunk(int start, int end, List<Outcome> replacement, boolean theirs) {
+  }
+}
@@ -0,0 +1,233 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry.ChangeType;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry.Status;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.repo.CredentialRefRepository;
+import io.redhat.na.ssp.tasktally.repo.OutcomeOutboxRepository;
+import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * Durable queue of outcome changes. Changes are recorded in the caller's transaction and delivered to Git later by
+ * {@link OutcomeOutboxDispatcher}. Every method here is a short database transaction; no Git I/O happens inside one.
+ */
+@ApplicationScoped
+public class OutcomeOutbox {
+  private static final Logger LOG = Logger.getLogger(OutcomeOutbox.class);
+
+  @Inject
+  OutcomeOutboxRepository outboxRepo;
+
+  @Inject
+  TemplateRepository templateRepo;
+
+  @Inject
+  CredentialRefRepository credentialRepo;
+
+  @Inject
+  ObjectMapper mapper;
+
+  @Inject
+  OutcomeProjection projection;
+
+  @ConfigProperty(name = "outcomes.outbox.max-attempts", defaultValue = "10")
+  int maxAttempts;
+
+  @ConfigProperty(name = "outcomes.outbox.backoff", defaultValue = "PT1S")
+  Duration backoff;
+
+  @ConfigProperty(name = "outcomes.outbox.max-backoff", defaultValue = "PT5M")
+  Duration maxBackoff;
+
+  /** A template's pending entries, leased to one dispatcher, with what is needed to push them. */
+  public record Claim(Template template, CredentialRef credential, List<OutcomeOutboxEntry> entries) {
+  }
+
+  /**
+   * Queues a change. A change that refers to an outcome index is first checked against the outcomes the template will
+   * have once everything already queued is delivered: the projected outcomes followed by the template's pending
+   * entries in order. Delivered entries are removed in the transaction that projects their commit, so under the
+   * template row lock the two never overlap and no Git I/O is needed.
+   *
+   * @throws NotFoundException
+   *           if the index will not exist
+   */
+  @Transactional
+  public OutcomeOutboxEntry enqueue(Long templateId, OutcomeChange change) {
+    if (change instanceof OutcomeChange.Replace || change instanceof OutcomeChange.Remove) {
+      templateRepo.findById(templateId, LockModeType.PESSIMISTIC_WRITE);
+      int committed = (int) projection.size(templateId).orElse(0);
+      // An index check only depends on the length of the list, so the changes are replayed over placeholders
+      List<Outcome> outcomes = new ArrayList<>(Collections.nCopies(committed, null));
+      for (OutcomeOutboxEntry pending : outboxRepo.listPending(templateId)) {
+        try {
+          toChange(pending).apply(outcomes);
+        } catch (NotFoundException e) {
+          // Dead-lettered on delivery without changing the list
+        }
+      }
+      change.apply(outcomes);
+    }
+    return persist(templateId, change);
+  }
+
+  private OutcomeOutboxEntry persist(Long templateId, OutcomeChange change) {
+    OutcomeOutboxEntry entry = toEntry(change);
+    entry.templateId = templateId;
+    outboxRepo.persist(entry);
+    LOG.debugf("Queued %s change %d for template %d", entry.changeType, entry.id, templateId);
+    return entry;
+  }
+
+  @Transactional
+  public List<Long> dueTemplateIds(int limit) {
+    return outboxRepo.dueTemplateIds(Instant.now(), limit);
+  }
+
+  /**
+   * Leases all pending entries of a template. Nothing is claimed while another dispatcher holds a lease on the template
+   * or while its oldest entry waits for a retry, so entries are always delivered in the order they were queued.
+   */
+  @Transactional
+  public Optional<Claim> claim(Long templateId, Duration lease) {
+    // The template row serializes concurrent claims for the same template across instances
+    Template template = templateRepo.findById(templateId, LockModeType.PESSIMISTIC_WRITE);
+    if (template == null) {
+      return Optional.empty();
+    }
+    List<OutcomeOutboxEntry> entries = outboxRepo.listPending(templateId);
+    Instant now = Instant.now();
+    if (entries.isEmpty() || entries.get(0).nextAttemptAt.isAfter(now)
+        || entries.stream().anyMatch(e -> e.lockedUntil != null && e.lockedUntil.isAfter(now))) {
+      return Optional.empty();
+    }
+
+    CredentialRef credential = null;
+    if (template.sshKeyName != null && !template.sshKeyName.trim().isEmpty()) {
+      credential = credentialRepo.findByUserAndName(template.userPreferences.id, template.sshKeyName).orElse(null);
+      if (credential == null) {
+        LOG.warnf("SSH credential %s for template %d not found, postponing %d outcome changes", template.sshKeyName,
+            templateId, entries.size());
+        entries.forEach(e -> retryOrBury(e, "SSH credential " + template.sshKeyName + " not found", true, now));
+        return Optional.empty();
+      }
+    }
+
+    Instant until = now.plus(lease);
+    entries.forEach(e -> e.lockedUntil = until);
+    return Optional.of(new Claim(template, credential, entries));
+  }
+
+  /** Removes delivered entries. */
+  @Transactional
+  public void complete(List<Long> ids) {
+    if (!ids.isEmpty()) {
+      outboxRepo.delete("id in ?1", ids);
+    }
+  }
+
+  /** Returns leased entries to the queue without counting an attempt, e.g. because an earlier entry failed. */
+  @Transactional
+  public void release(List<Long> ids) {
+    if (!ids.isEmpty()) {
+      outboxRepo.update("lockedUntil = null where id in ?1", ids);
+    }
+  }
+
+  /**
+   * Records a failed delivery. Retryable failures are scheduled again with exponential backoff until
+   * {@code outcomes.outbox.max-attempts} is reached; after that, or for permanent failures, the entry is dead-lettered.
+   *
+   * @return the entry's new status
+   */
+  @Transactional
+  public Status fail(Long id, String error, boolean retryable) {
+    OutcomeOutboxEntry entry = outboxRepo.findById(id);
+    if (entry == null) {
+      return Status.DEAD;
+    }
+    retryOrBury(entry, error, retryable, Instant.now());
+    return entry.status;
+  }
+
+  private void retryOrBury(OutcomeOutboxEntry entry, String error, boolean retryable, Instant now) {
+    entry.attempts++;
+    entry.lastError = error;
+    entry.lockedUntil = null;
+    if (!retryable || entry.attempts >= maxAttempts) {
+      entry.status = Status.DEAD;
+      LOG.errorf("Outcome change %d for template %d dead-lettered after %d attempts: %s", entry.id,
+          entry.templateId, entry.attempts, error);
+      return;
+    }
+    long delay = Math.min(maxBackoff.toMillis(), backoff.toMillis() << Math.min(entry.attempts - 1, 20));
+    entry.nextAttemptAt = now.plusMillis(delay);
+  }
+
+  OutcomeOutboxEntry toEntry(OutcomeChange change) {
+    OutcomeOutboxEntry entry = new OutcomeOutboxEntry();
+    switch (change) {
+      case OutcomeChange.Add add -> {
+        entry.changeType = ChangeType.ADD;
+        entry.payload = write(add.outcome());
+      }
+      case OutcomeChange.Replace replace -> {
+        entry.changeType = ChangeType.REPLACE;
+        entry.outcomeIndex = replace.index();
+        entry.payload = write(replace.outcome());
+      }
+      case OutcomeChange.Remove remove -> {
+        entry.changeType = ChangeType.REMOVE;
+        entry.outcomeIndex = remove.index();
+      }
+      case OutcomeChange.Clear clear -> entry.changeType = ChangeType.CLEAR;
+    }
+    return entry;
+  }
+
+  OutcomeChange toChange(OutcomeOutboxEntry entry) {
+    return switch (entry.changeType) {
+      case ADD -> new OutcomeChange.Add(read(entry.payload));
+      case REPLACE -> new OutcomeChange.Replace(entry.outcomeIndex, read(entry.payload));
+      case REMOVE -> new OutcomeChange.Remove(entry.outcomeIndex);
+      case CLEAR -> new OutcomeChange.Clear();
+    };
+  }
+
+  private String write(Outcome outcome) {
+    try {
+      return mapper.writeValueAsString(outcome);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Cannot serialize outcome", e);
+    }
+  }
+
+  private Outcome read(String payload) {
+    try {
+      return mapper.readValue(payload, Outcome.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Cannot deserialize outcome", e);
+    }
+  }
+}
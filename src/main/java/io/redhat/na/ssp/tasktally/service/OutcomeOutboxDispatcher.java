@@ -0,0 +1,183 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.NotFoundException;
+
+/**
+ * Delivers queued outcome changes to Git. A poller looks for templates with due entries every
+ * {@code outcomes.outbox.poll-interval} and hands each to a worker, which leases the template's pending entries and
+ * submits them in queue order to {@link OutcomeCommitBatcher} as one batch. Delivered entries are deleted; failed ones
+ * are retried or dead-lettered by {@link OutcomeOutbox#fail}.
+ */
+@ApplicationScoped
+public class OutcomeOutboxDispatcher {
+  private static final Logger LOG = Logger.getLogger(OutcomeOutboxDispatcher.class);
+
+  private final OutcomeOutbox outbox;
+  private final OutcomeCommitBatcher batcher;
+  private final boolean enabled;
+  private final long pollMillis;
+  private final Duration lease;
+  private final int batchSize;
+  private final ScheduledExecutorService poller;
+  private final ExecutorService workers;
+  private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+  private final Counter delivered;
+  private final Counter retried;
+  private final Counter dead;
+
+  @Inject
+  public OutcomeOutboxDispatcher(OutcomeOutbox outbox, OutcomeCommitBatcher batcher, MeterRegistry registry,
+      @ConfigProperty(name = "outcomes.outbox.enabled", defaultValue = "false") boolean enabled,
+      @ConfigProperty(name = "outcomes.outbox.poll-interval", defaultValue = "PT1S") Duration pollInterval,
+      @ConfigProperty(name = "outcomes.outbox.lease", defaultValue = "PT5M") Duration lease,
+      @ConfigProperty(name = "outcomes.outbox.batch-size", defaultValue = "50") int batchSize,
+      @ConfigProperty(name = "outcomes.outbox.threads", defaultValue = "4") int threads) {
+    this.outbox = outbox;
+    this.batcher = batcher;
+    this.enabled = enabled;
+    this.pollMillis = pollInterval.toMillis();
+    this.lease = lease;
+    this.batchSize = batchSize;
+    this.poller = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "outcome-outbox-poller"));
+    this.workers = Executors.newFixedThreadPool(threads, r -> daemon(r, "outcome-outbox"));
+    Gauge.builder("outcomes.outbox.inflight", inFlight, Set::size)
+        .description("Templates whose outbox entries are being delivered").register(registry);
+    this.delivered = Counter.builder("outcomes.outbox.deliveries").tag("result", "delivered").register(registry);
+    this.retried = Counter.builder("outcomes.outbox.deliveries").tag("result", "retried").register(registry);
+    this.dead = Counter.builder("outcomes.outbox.deliveries").tag("result", "dead").register(registry);
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    if (enabled) {
+      poller.scheduleWithFixedDelay(this::poll, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+      LOG.infof("Outcome outbox dispatcher started, polling every %d ms", pollMillis);
+    }
+  }
+
+  void poll() {
+    try {
+      for (Long templateId : outbox.dueTemplateIds(batchSize)) {
+        if (inFlight.add(templateId)) {
+          workers.execute(() -> {
+            try {
+              dispatch(templateId);
+            } finally {
+              inFlight.remove(templateId);
+            }
+          });
+        }
+      }
+    } catch (RuntimeException e) {
+      LOG.warnf("Polling the outcome outbox failed: %s", e.getMessage());
+    }
+  }
+
+  /**
+   * Delivers the pending entries of one template, if no other dispatcher holds them.
+   */
+  void dispatch(Long templateId) {
+    Optional<OutcomeOutbox.Claim> claimed;
+    try {
+      claimed = outbox.claim(templateId, lease);
+    } catch (RuntimeException e) {
+      LOG.warnf("Claiming outbox entries for template %d failed: %s", templateId, e.getMessage());
+      return;
+    }
+    if (claimed.isEmpty()) {
+      return;
+    }
+    OutcomeOutbox.Claim claim = claimed.get();
+
+    List<OutcomeOutboxEntry> entries = new ArrayList<>();
+    List<OutcomeChange> changes = new ArrayList<>();
+    for (OutcomeOutboxEntry entry : claim.entries()) {
+      try {
+        changes.add(outbox.toChange(entry));
+        entries.add(entry);
+      } catch (RuntimeException e) {
+        record(entry, e, false);
+      }
+    }
+    if (changes.isEmpty()) {
+      return;
+    }
+    LOG.debugf("Delivering %d outcome changes for template %d", changes.size(), templateId);
+    List<CompletableFuture<Outcome>> results = batcher.submitAll(claim.template(), claim.credential(), changes,
+        entries.stream().map(e -> e.id).toList());
+
+    List<Long> done = new ArrayList<>();
+    List<Long> released = new ArrayList<>();
+    boolean stopped = false;
+    for (int i = 0; i < entries.size(); i++) {
+      if (stopped) {
+        // Not applied by the batcher; delivered after the failed change once it succeeds or is dead-lettered
+        released.add(entries.get(i).id);
+        continue;
+      }
+      try {
+        results.get(i).join();
+        done.add(entries.get(i).id);
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        // An index that no longer exists will not appear by retrying
+        boolean retryable = !(cause instanceof NotFoundException);
+        record(entries.get(i), cause, retryable);
+        stopped = retryable;
+      }
+    }
+    outbox.complete(done);
+    outbox.release(released);
+    delivered.increment(done.size());
+    if (!done.isEmpty()) {
+      LOG.infof("Delivered %d outcome changes for template %d", done.size(), templateId);
+    }
+  }
+
+  private void record(OutcomeOutboxEntry entry, Throwable error, boolean retryable) {
+    String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    if (outbox.fail(entry.id, message, retryable) == OutcomeOutboxEntry.Status.DEAD) {
+      dead.increment();
+    } else {
+      retried.increment();
+      LOG.warnf("Outcome change %d for template %d failed, will retry: %s", entry.id, entry.templateId, message);
+    }
+  }
+
+  private static Thread daemon(Runnable r, String name) {
+    Thread t = new Thread(r, name);
+    t.setDaemon(true);
+    return t;
+  }
+
+  @PreDestroy
+  void close() {
+    poller.shutdownNow();
+    workers.shutdown();
+  }
+}
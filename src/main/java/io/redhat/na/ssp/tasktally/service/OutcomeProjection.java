@@ -0,0 +1,197 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import org.jboss.logging.Logger;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.OutcomeProjectionState;
+import io.redhat.na.ssp.tasktally.model.ProjectedOutcome;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.repo.OutcomeOutboxRepository;
+import io.redhat.na.ssp.tasktally.repo.OutcomeProjectionStateRepository;
+import io.redhat.na.ssp.tasktally.repo.ProjectedOutcomeRepository;
+import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
+import jakarta.transaction.Transactional;
+
+/**
+ * Postgres copy of the outcomes stored in Git, one row per outcome, tagged with the commit it was read at. Git stays
+ * the source of truth: {@link GitYamlService} serves reads from here only while the tagged commit is still the branch
+ * tip and refreshes the rows whenever it reads or writes a newer commit.
+ */
+@ApplicationScoped
+public class OutcomeProjection {
+  private static final Logger LOG = Logger.getLogger(OutcomeProjection.class);
+
+  @Inject
+  ProjectedOutcomeRepository rowRepo;
+
+  @Inject
+  OutcomeProjectionStateRepository stateRepo;
+
+  @Inject
+  TemplateRepository templateRepo;
+
+  @Inject
+  OutcomeOutboxRepository outboxRepo;
+
+  /**
+   * Returns the projected outcomes of a template if they were synchronized from {@code commitId}.
+   */
+  @Transactional
+  public Optional<List<Outcome>> read(Long templateId, String commitId) {
+    OutcomeProjectionState state = stateRepo.findById(templateId);
+    if (state == null || !state.commitId.equals(commitId)) {
+      return Optional.empty();
+    }
+    List<Outcome> outcomes = new ArrayList<>();
+    for (ProjectedOutcome row : rowRepo.listByTemplate(templateId)) {
+      outcomes.add(toOutcome(row));
+    }
+    return Optional.of(outcomes);
+  }
+
+  /** Whether the template's rows were synchronized from {@code commitId}. */
+  @Transactional
+  public boolean isCurrent(Long templateId, String commitId) {
+    OutcomeProjectionState state = stateRepo.findById(templateId);
+    return state != null && state.commitId.equals(commitId);
+  }
+
+  /**
+   * The number of projected outcomes of a template, at whatever commit they were synchronized from, or empty if the
+   * template was never projected.
+   */
+  @Transactional
+  public OptionalLong size(Long templateId) {
+    if (stateRepo.findById(templateId) == null) {
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of(rowRepo.count("templateId", templateId));
+  }
+
+  /**
+   * Evaluates a query over the projected outcomes of a template, if they were synchronized from {@code commitId}.
+   */
+  @Transactional
+  public Optional<OutcomeQuery.Page> query(Long templateId, String commitId, OutcomeQuery query) {
+    if (!isCurrent(templateId, commitId)) {
+      return Optional.empty();
+    }
+    List<ProjectedOutcome> rows = rowRepo.findPage(templateId, query.filters(), query.sort().attribute(),
+        query.descending(), query.after(), query.afterKey(), query.limit() + 1);
+    List<OutcomeQuery.Entry> entries = new ArrayList<>(rows.size());
+    for (ProjectedOutcome row : rows) {
+      entries.add(new OutcomeQuery.Entry(row.position, toOutcome(row)));
+    }
+    return Optional.of(query.page(entries));
+  }
+
+  /**
+   * Synchronizes a template's rows with the outcomes read or written at {@code commitId}. When the YAML blob is the one
+   * already projected only the commit is moved; otherwise only the rows whose content changed are written.
+   */
+  @Transactional
+  public void refresh(Long templateId, String commitId, String blobId, List<Outcome> outcomes) {
+    refresh(templateId, commitId, blobId, outcomes, List.of());
+  }
+
+  /**
+   * Synchronizes a template's rows as {@link #refresh(Long, String, String, List)} and removes the outbox entries
+   * {@code delivered} by the commit in the same transaction, so the rows and the pending entries never count a change
+   * twice.
+   */
+  @Transactional
+  public void refresh(Long templateId, String commitId, String blobId, List<Outcome> outcomes,
+      List<Long> delivered) {
+    // The template row serializes concurrent refreshes of the same template across instances
+    Template template = templateRepo.findById(templateId, LockModeType.PESSIMISTIC_WRITE);
+    if (template == null) {
+      return;
+    }
+    if (!delivered.isEmpty()) {
+      outboxRepo.delete("id in ?1", delivered);
+    }
+    OutcomeProjectionState state = stateRepo.findById(templateId);
+    if (state == null) {
+      state = new OutcomeProjectionState();
+      state.templateId = templateId;
+    } else if (state.commitId.equals(commitId)) {
+      return;
+    } else if (Objects.equals(state.blobId, blobId)) {
+      state.commitId = commitId;
+      LOG.debugf("Outcomes of template %d unchanged at %s", templateId, commitId);
+      return;
+    }
+
+    List<ProjectedOutcome> rows = rowRepo.listByTemplate(templateId);
+    int written = 0;
+    for (int i = 0; i < outcomes.size(); i++) {
+      Outcome outcome = outcomes.get(i);
+      if (i < rows.size()) {
+        ProjectedOutcome row = rows.get(i);
+        if (!sameContent(row, outcome)) {
+          apply(row, outcome);
+          written++;
+        }
+      } else {
+        ProjectedOutcome row = new ProjectedOutcome();
+        row.templateId = templateId;
+        row.position = i;
+        apply(row, outcome);
+        rowRepo.persist(row);
+        written++;
+      }
+    }
+    long removed = rows.size() > outcomes.size() ? rowRepo.deleteFrom(templateId, outcomes.size()) : 0;
+
+    state.commitId = commitId;
+    state.blobId = blobId;
+    if (!stateRepo.isPersistent(state)) {
+      stateRepo.persist(state);
+    }
+    LOG.debugf("Projected outcomes of template %d at %s: %d written, %d removed", templateId, commitId, written,
+        removed);
+  }
+
+  static Outcome toOutcome(ProjectedOutcome row) {
+    Outcome outcome = new Outcome();
+    outcome.phase = new Outcome.Phase();
+    outcome.phase.name = row.phaseName;
+    outcome.phase.track = row.track;
+    outcome.phase.product = row.product;
+    outcome.phase.environment = row.environment;
+    outcome.prefix = row.prefix;
+    outcome.description = row.description;
+    outcome.notes = row.notes;
+    outcome.createdAt = row.createdAt;
+    outcome.updatedAt = row.updatedAt;
+    return outcome;
+  }
+
+  static boolean sameContent(ProjectedOutcome row, Outcome outcome) {
+    Outcome.Phase phase = outcome.phase != null ? outcome.phase : new Outcome.Phase();
+    return Objects.equals(row.phaseName, phase.name) && Objects.equals(row.track, phase.track)
+        && Objects.equals(row.product, phase.product) && Objects.equals(row.environment, phase.environment)
+        && Objects.equals(row.prefix, outcome.prefix) && Objects.equals(row.description, outcome.description)
+        && Objects.equals(row.notes, outcome.notes);
+  }
+
+  private static void apply(ProjectedOutcome row, Outcome outcome) {
+    Outcome.Phase phase = outcome.phase != null ? outcome.phase : new Outcome.Phase();
+    row.phaseName = phase.name;
+    row.track = phase.track;
+    row.product = phase.product;
+    row.environment = phase.environment;
+    row.prefix = outcome.prefix;
+    row.description = outcome.description;
+    row.notes = outcome.notes;
+  }
+}
@@ -0,0 +1,233 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Filter, sort and page of an outcome listing. Outcomes are identified by their position in the template's YAML file;
+ * pages are addressed with an opaque keyset cursor holding the sort key and position of the last outcome returned, so a
+ * page costs the same wherever it starts.
+ *
+ * @param phase
+ *          exact phase name, or {@code null} for any
+ * @param track
+ *          exact track, or {@code null} for any
+ * @param product
+ *          exact product, or {@code null} for any
+ * @param environment
+ *          exact environment, or {@code null} for any
+ * @param sort
+ *          field to order by, ties broken by position
+ * @param descending
+ *          whether {@code sort} is descending
+ * @param limit
+ *          maximum number of outcomes per page
+ * @param after
+ *          position of the outcome the page starts after, or {@code null} for the first page
+ * @param afterKey
+ *          sort key of that outcome
+ */
+public record OutcomeQuery(String phase, String track, String product, String environment, Field sort,
+    boolean descending, int limit, Integer after, String afterKey) {
+
+  public static final int DEFAULT_LIMIT = 100;
+  public static final int MAX_LIMIT = 1000;
+
+  /** Sortable outcome fields, with the projection attribute each one maps to. */
+  public enum Field {
+    POSITION("position", o -> ""),
+    PHASE("phaseName", o -> o.phase != null ? o.phase.name : null),
+    TRACK("track", o -> o.phase != null ? o.phase.track : null),
+    PRODUCT("product", o -> o.phase != null ? o.phase.product : null),
+    ENVIRONMENT("environment", o -> o.phase != null ? o.phase.environment : null),
+    PREFIX("prefix", o -> o.prefix),
+    DESCRIPTION("description", o -> o.description);
+
+    private final String attribute;
+    private final Function<Outcome, String> getter;
+
+    Field(String attribute, Function<Outcome, String> getter) {
+      this.attribute = attribute;
+      this.getter = getter;
+    }
+
+    /** Attribute of {@link io.redhat.na.ssp.tasktally.model.ProjectedOutcome} this field is stored in. */
+    public String attribute() {
+      return attribute;
+    }
+
+    /** Sort key of an outcome; missing values sort as the empty string. */
+    public String key(Outcome outcome) {
+      return Objects.requireNonNullElse(getter.apply(outcome), "");
+    }
+  }
+
+  /** An outcome with its position in the file. */
+  public record Entry(int position, Outcome outcome) {
+  }
+
+  /** One page of results; {@code nextCursor} is {@code null} on the last page. */
+  public record Page(List<Entry> entries, String nextCursor) {
+  }
+
+  /**
+   * Parses request parameters.
+   *
+   * @param sort
+   *          a field name, optionally prefixed with {@code -} for descending order; {@code null} for file order
+   * @throws BadRequestException
+   *           if a parameter is invalid or the cursor was issued for another sort order
+   */
+  public static OutcomeQuery of(String phase, String track, String product, String environment, String sort,
+      Integer limit, String cursor) {
+    boolean descending = sort != null && sort.startsWith("-");
+    Field field = Field.POSITION;
+    if (sort != null && !sort.isBlank()) {
+      String name = descending ? sort.substring(1) : sort;
+      try {
+        field = Field.valueOf(name.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException("Unknown sort field: " + name);
+      }
+    }
+    int size = limit != null ? limit : DEFAULT_LIMIT;
+    if (size < 1 || size > MAX_LIMIT) {
+      throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+    }
+    Integer after = null;
+    String afterKey = null;
+    if (cursor != null && !cursor.isBlank()) {
+      String[] parts = decode(cursor);
+      if (!parts[0].equals(field.name() + (descending ? "-" : "+"))) {
+        throw new BadRequestException("Cursor does not match sort order");
+      }
+      after = Integer.valueOf(parts[1]);
+      afterKey = parts[2];
+    }
+    return new OutcomeQuery(blankToNull(phase), blankToNull(track), blankToNull(product), blankToNull(environment),
+        field, descending, size, after, afterKey);
+  }
+
+  /** Equality filters by projection attribute. */
+  public Map<String, String> filters() {
+    Map<String, String> filters = new LinkedHashMap<>();
+    putIfSet(filters, Field.PHASE.attribute(), phase);
+    putIfSet(filters, Field.TRACK.attribute(), track);
+    putIfSet(filters, Field.PRODUCT.attribute(), product);
+    putIfSet(filters, Field.ENVIRONMENT.attribute(), environment);
+    return filters;
+  }
+
+  /**
+   * Evaluates the query over outcomes held in memory, in file order.
+   */
+  public Page apply(List<Outcome> outcomes) {
+    Comparator<Entry> order = Comparator.comparing((Entry e) -> sort.key(e.outcome()), OutcomeQuery::compareKeys)
+        .thenComparingInt(Entry::position);
+    if (descending) {
+      order = order.reversed();
+    }
+    Entry start = after != null ? new Entry(after, keyOutcome()) : null;
+    List<Entry> matches = new ArrayList<>();
+    for (int i = 0; i < outcomes.size(); i++) {
+      Entry entry = new Entry(i, outcomes.get(i));
+      if (matches(entry.outcome()) && (start == null || order.compare(entry, start) > 0)) {
+        matches.add(entry);
+      }
+    }
+    matches.sort(order);
+    return page(matches);
+  }
+
+  /**
+   * Builds a page from up to {@code limit + 1} ordered matches; the extra one only signals that another page exists.
+   */
+  public Page page(List<Entry> ordered) {
+    if (ordered.size() <= limit) {
+      return new Page(ordered, null);
+    }
+    List<Entry> entries = List.copyOf(ordered.subList(0, limit));
+    return new Page(entries, cursorAfter(entries.get(limit - 1)));
+  }
+
+  String cursorAfter(Entry last) {
+    String raw = sort.name() + (descending ? "-" : "+") + "\n" + last.position() + "\n" + sort.key(last.outcome());
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Compares sort keys by code point, as the database's {@code ucs_basic} collation does, so that both evaluation
+   * paths produce the same order and accept each other's cursors.
+   */
+  static int compareKeys(String a, String b) {
+    int i = 0;
+    int j = 0;
+    while (i < a.length() && j < b.length()) {
+      int ca = a.codePointAt(i);
+      int cb = b.codePointAt(j);
+      if (ca != cb) {
+        return Integer.compare(ca, cb);
+      }
+      i += Character.charCount(ca);
+      j += Character.charCount(cb);
+    }
+    return Boolean.compare(i < a.length(), j < b.length());
+  }
+
+  boolean matches(Outcome outcome) {
+    Outcome.Phase p = outcome.phase != null ? outcome.phase : new Outcome.Phase();
+    return (phase == null || phase.equals(p.name)) && (track == null || track.equals(p.track))
+        && (product == null || product.equals(p.product))
+        && (environment == null || environment.equals(p.environment));
+  }
+
+  // An outcome whose sort key is the cursor's, for comparisons against it
+  private Outcome keyOutcome() {
+    Outcome outcome = new Outcome("", "", "", "", "", "", null);
+    switch (sort) {
+      case PHASE -> outcome.phase.name = afterKey;
+      case TRACK -> outcome.phase.track = afterKey;
+      case PRODUCT -> outcome.phase.product = afterKey;
+      case ENVIRONMENT -> outcome.phase.environment = afterKey;
+      case PREFIX -> outcome.prefix = afterKey;
+      case DESCRIPTION -> outcome.description = afterKey;
+      case POSITION -> {
+      }
+    }
+    return outcome;
+  }
+
+  private static String[] decode(String cursor) {
+    try {
+      String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+      if (parts.length != 3) {
+        throw new IllegalArgumentException("expected 3 parts");
+      }
+      Integer.parseInt(parts[1]);
+      return parts;
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException("Invalid cursor");
+    }
+  }
+
+  private static void putIfSet(Map<String, String> map, String key, String value) {
+    if (value != null) {
+      map.put(key, value);
+    }
+  }
+
+  private static String blankToNull(String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+}
@@ -0,0 +1,10 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.Template;
+
+/**
+ * An outcome found by a search, with the template it belongs to and its position in that template's YAML file.
+ */
+public record OutcomeSearchHit(Template template, int position, Outcome outcome) {
+}
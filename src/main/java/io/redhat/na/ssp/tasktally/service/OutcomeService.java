@@ -3,17 +3,26 @@ package io.redhat.na.ssp.tasktally.service;
 import io.redhat.na.ssp.tasktally.model.Outcome;
 import io.redhat.na.ssp.tasktally.model.Template;
 import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import io.redhat.na.ssp.tasktally.model.ProjectedOutcome;
+import io.redhat.na.ssp.tasktally.repo.ProjectedOutcomeRepository;
+import io.redhat.na.ssp.tasktally.repo.TemplateAccess;
 import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
-import io.redhat.na.ssp.tasktally.repo.UserPreferencesRepository;
-import io.redhat.na.ssp.tasktally.repo.CredentialRefRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+/**
+ * Outcome operations. Ownership and credential lookups run in a short transaction of their own; Git I/O always happens
+ * outside any transaction so that no pooled database connection is held during an SSH round trip.
+ */
 @ApplicationScoped
 public class OutcomeService {
   private static final Logger LOG = Logger.getLogger(OutcomeService.class);
@@ -22,23 +31,36 @@ public class OutcomeService {
   GitYamlService gitYamlService;
 
   @Inject
-  TemplateRepository templateRepo;
+  OutcomeCommitBatcher batcher;
+
+  @Inject
+  OutcomeOutbox outbox;
+
+  @Inject
+  OutcomeProjection projection;
+
+  @ConfigProperty(name = "outcomes.outbox.enabled", defaultValue = "false")
+  boolean outboxEnabled;
 
   @Inject
-  UserPreferencesRepository userRepo;
+  TemplateRepository templateRepo;
 
   @Inject
-  CredentialRefRepository credentialRepo;
+  ProjectedOutcomeRepository projectedRepo;
+
+  @ConfigProperty(name = "outcomes.search.sync", defaultValue = "true")
+  boolean searchSync;
+
+  @ConfigProperty(name = "outcomes.tally.sync", defaultValue = "true")
+  boolean tallySync;
 
-  @Transactional
   public List<Outcome> listByTemplate(String userId, Long templateId) {
     LOG.debugf("Listing outcomes for template %d for user %s", templateId, userId);
 
-    // Verify template belongs to user
-    Template template = verifyTemplateOwnership(userId, templateId);
-
-    // Get credential for Git operations
-    CredentialRef credential = getCredentialForTemplate(userId, template);
+    // Verify template belongs to user and get credential for Git operations
+    TemplateAccess access = lookup(userId, templateId);
+    Template template = access.template();
+    CredentialRef credential = access.credential();
 
     try {
       List<Outcome> outcomes = gitYamlService.readOutcomes(template, credential);
@@ -54,25 +76,130 @@ public class OutcomeService {
     }
   }
 
-  @Transactional
-  public Outcome create(String userId, Long templateId, Outcome outcome) {
-    LOG.debugf("Creating outcome for template %d for user %s", templateId, userId);
-
-    // Verify template belongs to user
-    Template template = verifyTemplateOwnership(userId, templateId);
+  /**
+   * Lists one page of a template's outcomes. The query runs in the database over the template's projection once it is
+   * synchronized with the remote tip, and over the outcomes read from Git otherwise.
+   */
+  public OutcomeQuery.Page query(String userId, Long templateId, OutcomeQuery query) {
+    LOG.debugf("Querying outcomes for template %d for user %s", templateId, userId);
 
-    // Get credential for Git operations
-    CredentialRef credential = getCredentialForTemplate(userId, template);
+    TemplateAccess access = lookup(userId, templateId);
+    Template template = access.template();
+    CredentialRef credential = access.credential();
 
     try {
-      // Read existing outcomes
-      List<Outcome> outcomes = gitYamlService.readOutcomes(template, credential);
+      String commitId = gitYamlService.syncProjection(template, credential);
+      if (commitId != null) {
+        Optional<OutcomeQuery.Page> page = projection.query(template.id, commitId, query);
+        if (page.isPresent()) {
+          return page.get();
+        }
+      }
+      return query.apply(gitYamlService.readOutcomes(template, credential));
+    } catch (RuntimeException e) {
+      // Handle SSH key resolution failures gracefully
+      if (e.getMessage() != null && e.getMessage().contains("Secret not found:")) {
+        LOG.warnf("SSH key secret not found for template %d, returning empty page", templateId);
+        return new OutcomeQuery.Page(List.of(), null);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Finds outcomes of all of the user's templates by words in their prefix, description and notes. Each template's
+   * projection is first brought up to its remote tip unless {@code outcomes.search.sync} is off.
+   */
+  public List<OutcomeSearchHit> search(String userId, String text, int limit) {
+    LOG.debugf("Searching outcomes of user %s for '%s'", userId, text);
+
+    List<TemplateAccess> templates = QuarkusTransaction.joiningExisting()
+        .call(() -> templateRepo.listAccess(userId));
+    Map<Long, Template> byId = new HashMap<>();
+    for (TemplateAccess access : templates) {
+      byId.put(access.template().id, access.template());
+    }
+    if (searchSync) {
+      syncProjections(templates);
+    }
+
+    List<ProjectedOutcome> rows = QuarkusTransaction.joiningExisting()
+        .call(() -> projectedRepo.search(userId, text, limit));
+    List<OutcomeSearchHit> hits = new ArrayList<>(rows.size());
+    for (ProjectedOutcome row : rows) {
+      hits.add(new OutcomeSearchHit(byId.get(row.templateId), row.position, OutcomeProjection.toOutcome(row)));
+    }
+    LOG.infof("Found %d outcomes matching '%s' in %d templates of user %s", hits.size(), text, templates.size(),
+        userId);
+    return hits;
+  }
+
+  /**
+   * Counts a template's outcomes grouped by the given phase fields. Counts are maintained incrementally in the
+   * database as the template's projection changes; the projection is brought up to the remote tip first.
+   */
+  public List<OutcomeTally.Group> tally(String userId, Long templateId, List<OutcomeTally.Dimension> groupBy) {
+    LOG.debugf("Tallying outcomes of template %d for user %s by %s", templateId, userId, groupBy);
+
+    TemplateAccess access = lookup(userId, templateId);
+    if (tallySync) {
+      syncProjections(List.of(access));
+    }
+    List<Object[]> rows = QuarkusTransaction.joiningExisting()
+        .call(() -> projectedRepo.tallyByTemplate(templateId, columns(groupBy)));
+    return rows.stream().map(row -> OutcomeTally.group(groupBy, row)).toList();
+  }
 
-      // Add new outcome
-      outcomes.add(outcome);
+  /**
+   * Counts the outcomes of all of the user's templates grouped by the given phase fields.
+   */
+  public List<OutcomeTally.Group> tally(String userId, List<OutcomeTally.Dimension> groupBy) {
+    LOG.debugf("Tallying outcomes of user %s by %s", userId, groupBy);
 
-      // Write back to Git
-      gitYamlService.writeOutcomes(template, outcomes, credential);
+    if (tallySync) {
+      syncProjections(QuarkusTransaction.joiningExisting().call(() -> templateRepo.listAccess(userId)));
+    }
+    List<Object[]> rows = QuarkusTransaction.joiningExisting()
+        .call(() -> projectedRepo.tallyByUser(userId, columns(groupBy)));
+    return rows.stream().map(row -> OutcomeTally.group(groupBy, row)).toList();
+  }
+
+  private static List<String> columns(List<OutcomeTally.Dimension> groupBy) {
+    return groupBy.stream().map(OutcomeTally.Dimension::column).toList();
+  }
+
+  /**
+   * Brings each template's projection up to its remote tip: one {@code ls-remote} per template and a Git read only for
+   * templates that changed. A template that cannot be synced keeps its last projection.
+   */
+  private void syncProjections(List<TemplateAccess> templates) {
+    for (TemplateAccess access : templates) {
+      Template template = access.template();
+      if (template.sshKeyName != null && !template.sshKeyName.trim().isEmpty() && access.credential() == null) {
+        LOG.warnf("SSH credential %s for template %d not found, using its last projection", template.sshKeyName,
+            template.id);
+        continue;
+      }
+      try {
+        gitYamlService.syncProjection(template, access.credential());
+      } catch (RuntimeException e) {
+        LOG.warnf("Syncing outcomes of template %d failed, using its last projection: %s", template.id,
+            e.getMessage());
+      }
+    }
+  }
+
+  public Outcome create(String userId, Long templateId, Outcome outcome) {
+    LOG.debugf("Creating outcome for template %d for user %s", templateId, userId);
+
+    // Verify template belongs to user and get credential for Git operations
+    TemplateAccess access = lookup(userId, templateId);
+    Template template = access.template();
+    CredentialRef credential = access.credential();
+
+    try {
+      // Append to the template's pending batch; it is committed together with concurrent changes
+      submit(template, credential, new OutcomeChange.Add(outcome));
 
       LOG.infof("Created outcome for template %d for user %s", templateId, userId);
       return outcome;
@@ -86,33 +213,23 @@ public class OutcomeService {
     }
   }
 
-  @Transactional
   public Outcome update(String userId, Long templateId, Long outcomeId, Outcome incoming) {
     LOG.debugf("Updating outcome %d for template %d for user %s", outcomeId, templateId, userId);
 
-    // Verify template belongs to user
-    Template template = verifyTemplateOwnership(userId, templateId);
-
-    // Get credential for Git operations
-    CredentialRef credential = getCredentialForTemplate(userId, template);
+    // Verify template belongs to user and get credential for Git operations
+    TemplateAccess access = lookup(userId, templateId);
+    Template template = access.template();
+    CredentialRef credential = access.credential();
 
     try {
-      // Read existing outcomes
-      List<Outcome> outcomes = gitYamlService.readOutcomes(template, credential);
-
-      // Find and update the outcome
-      if (outcomeId >= 0 && outcomeId < outcomes.size()) {
-        outcomes.set(outcomeId.intValue(), incoming);
+      // Replace the outcome; an unknown index fails with NotFoundException
+      submit(template, credential, new OutcomeChange.Replace(outcomeId, incoming));
 
-        // Write back to Git
-        gitYamlService.writeOutcomes(template, outcomes, credential);
-
-        LOG.infof("Updated outcome %d for template %d for user %s", outcomeId, templateId, userId);
-        return incoming;
-      } else {
-        LOG.errorf("Outcome %d for template %d for user %s not found", outcomeId, templateId, userId);
-        throw new NotFoundException();
-      }
+      LOG.infof("Updated outcome %d for template %d for user %s", outcomeId, templateId, userId);
+      return incoming;
+    } catch (NotFoundException e) {
+      LOG.errorf("Outcome %d for template %d for user %s not found", outcomeId, templateId, userId);
+      throw e;
     } catch (RuntimeException e) {
       // Handle SSH key resolution failures
       if (e.getMessage() != null && e.getMessage().contains("Secret not found:")) {
@@ -123,32 +240,22 @@ public class OutcomeService {
     }
   }
 
-  @Transactional
   public void delete(String userId, Long templateId, Long outcomeId) {
     LOG.debugf("Deleting outcome %d for template %d for user %s", outcomeId, templateId, userId);
 
-    // Verify template belongs to user
-    Template template = verifyTemplateOwnership(userId, templateId);
-
-    // Get credential for Git operations
-    CredentialRef credential = getCredentialForTemplate(userId, template);
+    // Verify template belongs to user and get credential for Git operations
+    TemplateAccess access = lookup(userId, templateId);
+    Template template = access.template();
+    CredentialRef credential = access.credential();
 
     try {
-      // Read existing outcomes
-      List<Outcome> outcomes = gitYamlService.readOutcomes(template, credential);
-
-      // Remove the outcome
-      if (outcomeId >= 0 && outcomeId < outcomes.size()) {
-        outcomes.remove(outcomeId.intValue());
+      // Remove the outcome; an unknown index fails with NotFoundException
+      submit(template, credential, new OutcomeChange.Remove(outcomeId));
 
-        // Write back to Git
-        gitYamlService.writeOutcomes(template, outcomes, credential);
-
-        LOG.infof("Deleted outcome %d for template %d for user %s", outcomeId, templateId, userId);
-      } else {
-        LOG.errorf("Outcome %d for template %d for user %s not found", outcomeId, templateId, userId);
-        throw new NotFoundException();
-      }
+      LOG.infof("Deleted outcome %d for template %d for user %s", outcomeId, templateId, userId);
+    } catch (NotFoundException e) {
+      LOG.errorf("Outcome %d for template %d for user %s not found", outcomeId, templateId, userId);
+      throw e;
     } catch (RuntimeException e) {
       // Handle SSH key resolution failures
       if (e.getMessage() != null && e.getMessage().contains("Secret not found:")) {
@@ -159,19 +266,17 @@ public class OutcomeService {
     }
   }
 
-  @Transactional
   public void deleteAllByTemplate(String userId, Long templateId) {
     LOG.debugf("Deleting all outcomes for template %d for user %s", templateId, userId);
 
-    // Verify template belongs to user
-    Template template = verifyTemplateOwnership(userId, templateId);
-
-    // Get credential for Git operations
-    CredentialRef credential = getCredentialForTemplate(userId, template);
+    // Verify template belongs to user and get credential for Git operations
+    TemplateAccess access = lookup(userId, templateId);
+    Template template = access.template();
+    CredentialRef credential = access.credential();
 
     try {
-      // Write empty outcomes list to Git
-      gitYamlService.writeOutcomes(template, new ArrayList<>(), credential);
+      // Clear the list; changes queued after this one still apply on top of it
+      submit(template, credential, new OutcomeChange.Clear());
 
       LOG.infof("Deleted all outcomes for template %d for user %s", templateId, userId);
     } catch (RuntimeException e) {
@@ -184,32 +289,47 @@ public class OutcomeService {
     }
   }
 
-  private Template verifyTemplateOwnership(String userId, Long templateId) {
-    var userPrefs = userRepo.findByUserId(userId).orElseThrow(() -> {
-      LOG.errorf("User %s not found", userId);
-      return new NotFoundException();
-    });
-
-    return templateRepo.findByUserAndId(userPrefs.id, templateId).orElseThrow(() -> {
-      LOG.errorf("Template %d for user %s not found", templateId, userId);
-      return new NotFoundException();
-    });
+  /**
+   * Whether changes are only queued when the methods above return, to be pushed to Git in the background. Reads do not
+   * reflect a queued change until it has been pushed.
+   */
+  public boolean writesQueued() {
+    return outboxEnabled;
   }
 
-  private CredentialRef getCredentialForTemplate(String userId, Template template) {
-    if (template.sshKeyName != null && !template.sshKeyName.trim().isEmpty()) {
-      var userPrefs = userRepo.findByUserId(userId).orElseThrow(() -> {
-        LOG.errorf("User %s not found", userId);
-        return new NotFoundException();
-      });
-
-      return credentialRepo.findByUserAndName(userPrefs.id, template.sshKeyName).orElseThrow(() -> {
-        LOG.errorf("SSH credential %s for user %s not found", template.sshKeyName, userId);
-        return new NotFoundException();
-      });
+  /**
+   * With the outbox enabled the change is recorded in a short transaction and pushed to Git after it commits. An
+   * outcome index is checked against the projection and the changes queued before it, so an unknown one still fails
+   * with {@link NotFoundException}; Git is only read once, for a template that was never projected. Otherwise the
+   * change is pushed before returning.
+   */
+  private void submit(Template template, CredentialRef credential, OutcomeChange change) {
+    if (outboxEnabled) {
+      if ((change instanceof OutcomeChange.Replace || change instanceof OutcomeChange.Remove)
+          && projection.size(template.id).isEmpty()) {
+        gitYamlService.syncProjection(template, credential);
+      }
+      outbox.enqueue(template.id, change);
+    } else {
+      batcher.submit(template, credential, change);
     }
+  }
 
-    // Return null if no SSH key is configured (will use default SSH config)
-    return null;
+  /**
+   * Verifies that the template belongs to the user and resolves its SSH credential with a single query. A template
+   * without an SSH key uses the default SSH configuration (credential {@code null}).
+   */
+  private TemplateAccess lookup(String userId, Long templateId) {
+    TemplateAccess access = QuarkusTransaction.joiningExisting()
+        .call(() -> templateRepo.findAccess(userId, templateId)).orElseThrow(() -> {
+          LOG.errorf("Template %d for user %s not found", templateId, userId);
+          return new NotFoundException();
+        });
+    Template template = access.template();
+    if (template.sshKeyName != null && !template.sshKeyName.trim().isEmpty() && access.credential() == null) {
+      LOG.errorf("SSH credential %s for user %s not found", template.sshKeyName, userId);
+      throw new NotFoundException();
+    }
+    return access;
   }
 }
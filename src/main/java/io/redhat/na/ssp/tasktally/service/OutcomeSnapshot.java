@@ -0,0 +1,11 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.util.List;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+
+/**
+ * Outcomes as read at {@code commitId}, or at no commit ({@code null}) when the branch does not exist.
+ */
+public record OutcomeSnapshot(String commitId, List<Outcome> outcomes) {
+}
@@ -0,0 +1,80 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.ws.rs.BadRequestException;
+
+/**
+ * Outcome counts grouped by a combination of {@link io.redhat.na.ssp.tasktally.model.Outcome.Phase} fields.
+ */
+public final class OutcomeTally {
+
+  private OutcomeTally() {
+  }
+
+  /** Phase fields outcomes can be grouped by, with the tally column each one is stored in. */
+  public enum Dimension {
+    PHASE("phase_name"), TRACK("track"), PRODUCT("product"), ENVIRONMENT("environment");
+
+    private final String column;
+
+    Dimension(String column) {
+      this.column = column;
+    }
+
+    public String column() {
+      return column;
+    }
+
+    public String parameter() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * Number of outcomes sharing the same values of the grouped dimensions; a value is {@code null} when outcomes have
+   * no such field.
+   */
+  public record Group(Map<Dimension, String> key, long count) {
+  }
+
+  /**
+   * Parses a comma-separated {@code groupBy} parameter. {@code null} or blank groups nothing, giving one total.
+   *
+   * @throws BadRequestException
+   *           if a dimension is unknown or repeated
+   */
+  public static List<Dimension> parse(String groupBy) {
+    List<Dimension> dimensions = new ArrayList<>();
+    if (groupBy == null || groupBy.isBlank()) {
+      return dimensions;
+    }
+    for (String name : groupBy.split(",")) {
+      Dimension dimension;
+      try {
+        dimension = Dimension.valueOf(name.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new BadRequestException("Unknown groupBy field: " + name.trim());
+      }
+      if (dimensions.contains(dimension)) {
+        throw new BadRequestException("Repeated groupBy field: " + name.trim());
+      }
+      dimensions.add(dimension);
+    }
+    return dimensions;
+  }
+
+  /** Builds a group from a result row holding the dimension values in order followed by the count. */
+  static Group group(List<Dimension> dimensions, Object[] row) {
+    Map<Dimension, String> key = new EnumMap<>(Dimension.class);
+    for (int i = 0; i < dimensions.size(); i++) {
+      String value = (String) row[i];
+      key.put(dimensions.get(i), value == null || value.isEmpty() ? null : value);
+    }
+    return new Group(key, ((Number) row[dimensions.size()]).longValue());
+  }
+}
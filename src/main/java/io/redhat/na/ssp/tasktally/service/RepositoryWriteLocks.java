@@ -0,0 +1,83 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.jboss.logging.Logger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+/**
+ * Orders read-modify-write cycles per repository inside the JVM. Writers to the same repository URL queue on a fair
+ * lock, so each one starts from the tip the previous one pushed; writers to different repositories never block each
+ * other. Locks exist only while they are held or awaited.
+ */
+@ApplicationScoped
+public class RepositoryWriteLocks {
+  private static final Logger LOG = Logger.getLogger(RepositoryWriteLocks.class);
+
+  /** Work executed while holding a repository's write lock. */
+  @FunctionalInterface
+  public interface LockedWrite<T, E extends Exception> {
+    T run() throws E;
+  }
+
+  private final Map<String, Stripe> stripes = new ConcurrentHashMap<>();
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final Timer waitTimer;
+
+  @Inject
+  public RepositoryWriteLocks(MeterRegistry registry) {
+    Gauge.builder("git.write.queue.depth", waiting, AtomicInteger::get)
+        .description("Writers waiting for a repository write lock").register(registry);
+    Gauge.builder("git.write.locks.active", stripes, Map::size)
+        .description("Repositories with a held or awaited write lock").register(registry);
+    this.waitTimer = Timer.builder("git.write.lock.wait").description("Time spent waiting for a repository write lock")
+        .register(registry);
+  }
+
+  /**
+   * Runs {@code write} while holding the write lock for {@code repositoryUrl}.
+   */
+  public <T, E extends Exception> T withLock(String repositoryUrl, LockedWrite<T, E> write) throws E {
+    Stripe stripe = stripes.compute(repositoryUrl, (k, s) -> {
+      Stripe acquired = s != null ? s : new Stripe();
+      acquired.users++;
+      return acquired;
+    });
+    long start = System.nanoTime();
+    waiting.incrementAndGet();
+    try {
+      stripe.lock.lock();
+    } finally {
+      waiting.decrementAndGet();
+    }
+    long waited = System.nanoTime() - start;
+    waitTimer.record(waited, TimeUnit.NANOSECONDS);
+    LOG.debugf("Acquired write lock for %s after %d ms", repositoryUrl, TimeUnit.NANOSECONDS.toMillis(waited));
+    try {
+      return write.run();
+    } finally {
+      stripe.lock.unlock();
+      stripes.computeIfPresent(repositoryUrl, (k, s) -> --s.users == 0 ? null : s);
+    }
+  }
+
+  /** Number of writers currently waiting for any repository. */
+  public int queueDepth() {
+    return waiting.get();
+  }
+
+  private static final class Stripe {
+    private final ReentrantLock lock = new ReentrantLock(true);
+    // Guarded by the map's compute operations
+    private int users;
+  }
+}
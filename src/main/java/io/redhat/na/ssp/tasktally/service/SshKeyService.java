@@ -1,25 +1,29 @@
 package io.redhat.na.ssp.tasktally.service;
 
-import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.KeyPair;
-import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
-import org.apache.sshd.common.NamedResource;
-import org.apache.sshd.common.config.keys.FilePasswordProvider;
-import org.apache.sshd.common.config.keys.loader.openssh.OpenSSHKeyPairResourceParser;
+import org.apache.sshd.common.config.keys.PublicKeyEntry;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyPairResourceWriter;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import io.redhat.na.ssp.tasktally.api.SshKeyCreateRequest;
 import io.redhat.na.ssp.tasktally.api.SshKeyGenerateRequest;
+import io.redhat.na.ssp.tasktally.github.ssh.KeyPairCache;
+import io.redhat.na.ssp.tasktally.github.ssh.SshSessionFactoryPool;
+import io.redhat.na.ssp.tasktally.github.ssh.TaskTallySshdSessionFactory;
 import io.redhat.na.ssp.tasktally.model.CredentialRef;
 import io.redhat.na.ssp.tasktally.model.UserPreferences;
 import io.redhat.na.ssp.tasktally.repo.CredentialRefRepository;
@@ -55,6 +59,12 @@ public class SshKeyService {
   SecretResolver secretResolver;
   @Inject
   SshHostKeyService sshHostKeyService;
+  @Inject
+  SshSessionFactoryPool sshSessions;
+  @Inject
+  KeyPairCache keyPairs;
+  @Inject
+  KeyPairPool keyPairPool;
 
   @ConfigProperty(name = "ssh.encryption.required", defaultValue = "false")
   boolean encryptionRequired;
@@ -114,6 +124,12 @@ public class SshKeyService {
     cred.knownHostsRef = refs.knownHostsRef();
     cred.passphraseRef = refs.passphraseRef();
     cred.createdAt = Instant.now();
+    try {
+      KeyPair kp = TaskTallySshdSessionFactory.parseIdentities(priv, pp).get(0);
+      recordPublicKey(cred, buildOpenSshPublic(kp.getPublic(), userId, null));
+    } catch (IOException e) {
+      LOG.debugf("Cannot derive public key of SSH credential %s yet: %s", name, e.getMessage());
+    }
 
     credentialRefRepository.persist(cred);
     LOG.infof("Created SSH credential %s for user %s", name, userId);
@@ -123,9 +139,7 @@ public class SshKeyService {
   @Transactional
   public void delete(String userId, String name) {
     String trimmedName = name != null ? name.trim() : null;
-    UserPreferences userPrefs = getUserPreferences(userId);
-    CredentialRef cred = credentialRefRepository.findByUserAndName(userPrefs.id, trimmedName)
-        .orElseThrow(() -> new IllegalArgumentException("not found"));
+    CredentialRef cred = findCredential(userId, trimmedName);
 
     try {
       secretWriter.deleteByRef(cred.secretRef);
@@ -135,6 +149,8 @@ public class SshKeyService {
       LOG.warn("Failed to delete secret", e);
     }
 
+    sshSessions.invalidate(cred);
+    keyPairs.invalidate(cred);
     credentialRefRepository.delete(cred);
     LOG.infof("Deleted SSH credential %s for user %s", trimmedName, userId);
   }
@@ -142,8 +158,12 @@ public class SshKeyService {
   @Transactional
   public CredentialRef get(String userId, String name) {
     String trimmedName = name != null ? name.trim() : null;
-    UserPreferences userPrefs = getUserPreferences(userId);
-    return credentialRefRepository.findByUserAndName(userPrefs.id, trimmedName)
+    return findCredential(userId, trimmedName);
+  }
+
+  private CredentialRef findCredential(String userId, String name) {
+    return userPreferencesRepository.findIdByUserId(userId)
+        .flatMap(userPreferencesId -> credentialRefRepository.findByUserAndName(userPreferencesId, name))
         .orElseThrow(() -> new IllegalArgumentException("not found"));
   }
 
@@ -166,6 +186,7 @@ public class SshKeyService {
     if (provider == null || !ALLOWED_PROVIDERS.contains(provider)) {
       throw new IllegalArgumentException("provider must be github or gitlab");
     }
+    KeyPairPool.Algorithm algorithm = KeyPairPool.Algorithm.of(req.keyType);
     // Handle known hosts - either provided directly or fetched from hostname
     byte[] khRaw;
     if (req.knownHosts != null && !req.knownHosts.trim().isEmpty()) {
@@ -183,12 +204,12 @@ public class SshKeyService {
     }
 
     try {
-      KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
-      kpg.initialize(2048); // Use 2048-bit RSA keys
-      KeyPair kp = kpg.generateKeyPair();
-      byte[] privatePem = writePkcs8Pem(kp.getPrivate());
-
+      KeyPair kp = keyPairPool.take(algorithm);
       String publicLine = buildOpenSshPublic(kp.getPublic(), userId, req.comment);
+      // RSA keys keep the PKCS#8 format they always had; other key types use the OpenSSH format ssh-keygen writes
+      byte[] privatePem = algorithm == KeyPairPool.Algorithm.RSA ? writePkcs8Pem(kp.getPrivate())
+          : writeOpenSshPrivateKey(kp, keyComment(userId, req.comment));
+
       byte[] publicOpenSsh = (publicLine + "\n").getBytes(StandardCharsets.UTF_8);
 
       SshSecretRefs refs = secretWriter.writeSshKey(userId, name, privatePem, publicOpenSsh, pp, khRaw);
@@ -202,17 +223,35 @@ public class SshKeyService {
       cred.knownHostsRef = refs.knownHostsRef();
       cred.passphraseRef = refs.passphraseRef();
       cred.createdAt = Instant.now();
+      recordPublicKey(cred, publicLine);
 
       credentialRefRepository.persist(cred);
       LOG.infof("Generated SSH credential %s for user %s", name, userId);
       return cred;
-    } catch (GeneralSecurityException e) {
+    } catch (GeneralSecurityException | IOException e) {
       throw new IllegalStateException("failed to generate key", e);
     }
   }
 
-  public String getPublicKey(String userId, String name) {
+  /**
+   * Returns the credential with its public key and fingerprint. Credentials stored before these were recorded get them
+   * filled in once, from the public key secret or else by decoding the private key; the secrets are not rewritten.
+   */
+  @Transactional
+  public CredentialRef getWithPublicKey(String userId, String name) {
     CredentialRef cred = get(userId, name);
+    if (cred.publicKey == null) {
+      recordPublicKey(cred, derivePublicKey(userId, cred));
+      LOG.infof("Recorded public key of SSH credential %s for user %s", cred.name, userId);
+    }
+    return cred;
+  }
+
+  public String getPublicKey(String userId, String name) {
+    return getWithPublicKey(userId, name).publicKey;
+  }
+
+  private String derivePublicKey(String userId, CredentialRef cred) {
     String privRef = cred.secretRef;
     if (privRef == null) {
       throw new IllegalStateException("missing secret ref");
@@ -229,30 +268,34 @@ public class SshKeyService {
       }
       try {
         byte[] priv = secretResolver.resolveBytes(privRef);
-        NamedResource named = NamedResource.ofName("id_rsa");
-        FilePasswordProvider fpp = cred.passphraseRef != null
-            ? FilePasswordProvider.of(secretResolver.resolve(cred.passphraseRef))
-            : FilePasswordProvider.EMPTY;
-        KeyPair kp;
-        try (ByteArrayInputStream in = new ByteArrayInputStream(priv)) {
-          Iterable<KeyPair> keys = OpenSSHKeyPairResourceParser.INSTANCE.loadKeyPairs(null, named, fpp, in);
-          kp = keys.iterator().next();
-        }
-        String publicLine = buildOpenSshPublic(kp.getPublic(), userId, null);
-        byte[] publicBytes = (publicLine + "\n").getBytes(StandardCharsets.UTF_8);
         char[] passphrase = cred.passphraseRef != null
             ? secretResolver.resolve(cred.passphraseRef).toCharArray()
             : null;
-        byte[] knownHosts = cred.knownHostsRef != null ? secretResolver.resolveBytes(cred.knownHostsRef) : null;
-        secretWriter.writeSshKey(userId, cred.name, priv, publicBytes, passphrase, knownHosts);
-        return publicLine;
-      } catch (IOException | GeneralSecurityException e) {
+        KeyPair kp = keyPairs.get(cred, priv, passphrase).get(0);
+        return buildOpenSshPublic(kp.getPublic(), userId, null);
+      } catch (IOException e) {
         throw new IllegalStateException("failed to derive public key", e);
       }
     }
     throw new IllegalStateException("unsupported secret backend");
   }
 
+  private static void recordPublicKey(CredentialRef cred, String publicLine) {
+    cred.publicKey = publicLine;
+    cred.fingerprintSha256 = fingerprint(publicLine);
+  }
+
+  /** SHA-256 of the key blob of an OpenSSH public key line, Base64 encoded. */
+  static String fingerprint(String publicKeyLine) {
+    String[] parts = publicKeyLine.trim().split("\\s+");
+    byte[] blob = Base64.getDecoder().decode(parts[1]);
+    try {
+      return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(blob));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   private UserPreferences getUserPreferences(String userId) {
     return userPreferencesRepository.findByUserId(userId).orElseGet(() -> {
       UserPreferences userPrefs = new UserPreferences();
@@ -270,57 +313,19 @@ public class SshKeyService {
     return pem.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
   }
 
+  private byte[] writeOpenSshPrivateKey(KeyPair keyPair, String comment) throws IOException, GeneralSecurityException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    OpenSSHKeyPairResourceWriter.INSTANCE.writePrivateKey(keyPair, comment, null, out);
+    return out.toByteArray();
+  }
+
   private String buildOpenSshPublic(java.security.PublicKey pub, String userId, String comment) {
-    String c = (comment == null || comment.isBlank()) ? "task-tally@" + userId : comment.trim();
-    String keyType = "ssh-rsa";
-
-    // Convert to OpenSSH wire format
-    byte[] sshKeyBytes;
-    if (pub instanceof java.security.interfaces.RSAPublicKey) {
-      // For RSA, we need to extract the modulus and exponent and format them for SSH
-      java.security.interfaces.RSAPublicKey rsaKey = (java.security.interfaces.RSAPublicKey) pub;
-      java.math.BigInteger modulus = rsaKey.getModulus();
-      java.math.BigInteger exponent = rsaKey.getPublicExponent();
-
-      // Convert to byte arrays
-      byte[] modulusBytes = modulus.toByteArray();
-      byte[] exponentBytes = exponent.toByteArray();
-
-      // SSH wire format: string "ssh-rsa" + string e + string n
-      byte[] keyTypeBytes = keyType.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-      sshKeyBytes = new byte[4 + keyTypeBytes.length + 4 + exponentBytes.length + 4 + modulusBytes.length];
-
-      int offset = 0;
-
-      // Write key type length and key type
-      sshKeyBytes[offset++] = (byte) ((keyTypeBytes.length >> 24) & 0xFF);
-      sshKeyBytes[offset++] = (byte) ((keyTypeBytes.length >> 16) & 0xFF);
-      sshKeyBytes[offset++] = (byte) ((keyTypeBytes.length >> 8) & 0xFF);
-      sshKeyBytes[offset++] = (byte) (keyTypeBytes.length & 0xFF);
-      System.arraycopy(keyTypeBytes, 0, sshKeyBytes, offset, keyTypeBytes.length);
-      offset += keyTypeBytes.length;
-
-      // Write exponent length and exponent
-      sshKeyBytes[offset++] = (byte) ((exponentBytes.length >> 24) & 0xFF);
-      sshKeyBytes[offset++] = (byte) ((exponentBytes.length >> 16) & 0xFF);
-      sshKeyBytes[offset++] = (byte) ((exponentBytes.length >> 8) & 0xFF);
-      sshKeyBytes[offset++] = (byte) (exponentBytes.length & 0xFF);
-      System.arraycopy(exponentBytes, 0, sshKeyBytes, offset, exponentBytes.length);
-      offset += exponentBytes.length;
-
-      // Write modulus length and modulus
-      sshKeyBytes[offset++] = (byte) ((modulusBytes.length >> 24) & 0xFF);
-      sshKeyBytes[offset++] = (byte) ((modulusBytes.length >> 16) & 0xFF);
-      sshKeyBytes[offset++] = (byte) ((modulusBytes.length >> 8) & 0xFF);
-      sshKeyBytes[offset++] = (byte) (modulusBytes.length & 0xFF);
-      System.arraycopy(modulusBytes, 0, sshKeyBytes, offset, modulusBytes.length);
-    } else {
-      // Fallback for other key types
-      sshKeyBytes = pub.getEncoded();
-    }
+    // Key type and wire format as in authorized_keys, e.g. "ssh-ed25519 AAAA..."
+    return PublicKeyEntry.toString(pub) + " " + keyComment(userId, comment);
+  }
 
-    String encoded = java.util.Base64.getEncoder().encodeToString(sshKeyBytes);
-    return keyType + " " + encoded + " " + c;
+  private String keyComment(String userId, String comment) {
+    return (comment == null || comment.isBlank()) ? "task-tally@" + userId : comment.trim();
   }
 
   private String ensureTrailingNewline(String s) {
@@ -3,20 +3,19 @@ package io.redhat.na.ssp.tasktally.service;
 import io.redhat.na.ssp.tasktally.model.Template;
 import io.redhat.na.ssp.tasktally.model.UserPreferences;
 import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import io.redhat.na.ssp.tasktally.repo.CredentialRefRepository;
 import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
 import io.redhat.na.ssp.tasktally.repo.UserPreferencesRepository;
 import io.redhat.na.ssp.tasktally.github.ssh.SshGitService;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.NotFoundException;
-import org.eclipse.jgit.api.errors.GitAPIException;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.DumperOptions;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,7 +32,9 @@ public class TemplateService {
   @Inject
   SshGitService gitService;
   @Inject
-  SshKeyService sshKeyService;
+  CredentialRefRepository credentialRepo;
+  @Inject
+  RepositoryWriteLocks writeLocks;
 
   private final Yaml yaml;
 
@@ -47,78 +48,69 @@ public class TemplateService {
   @Transactional
   public List<Template> list(String userId) {
     LOG.debugf("Listing templates for user %s", userId);
-    UserPreferences up = userRepo.findByUserId(userId).orElseThrow(() -> {
-      LOG.errorf("User %s not found", userId);
-      return new NotFoundException();
-    });
-    List<Template> list = templateRepo.listByUser(up.id);
+    List<Template> list = templateRepo.listByUser(userPreferencesId(userId));
     LOG.infof("Found %d templates for user %s", list.size(), userId);
     return list;
   }
 
-  @Transactional
+  /**
+   * Validates the request in a short transaction, writes {@code template.yml} with no transaction open, and only then
+   * persists the template, so no database connection is held during the SSH round trip.
+   */
   public Template create(String userId, Template tmpl) {
     LOG.debugf("Creating template %s for user %s", tmpl.name, userId);
-    UserPreferences up = userRepo.findByUserId(userId).orElseThrow(() -> {
-      LOG.errorf("User %s not found", userId);
-      return new NotFoundException();
+    Validated access = QuarkusTransaction.joiningExisting().call(() -> {
+      Long userPreferencesId = userPreferencesId(userId);
+      return new Validated(userPreferencesId, credentialFor(userPreferencesId, userId, tmpl.sshKeyName));
     });
 
-    // Validate SSH key reference if provided
-    if (tmpl.sshKeyName != null && !tmpl.sshKeyName.trim().isEmpty()) {
-      try {
-        sshKeyService.get(userId, tmpl.sshKeyName);
-        LOG.debugf("SSH key %s validated for user %s", tmpl.sshKeyName, userId);
-      } catch (IllegalArgumentException e) {
-        LOG.errorf("Invalid SSH key reference %s for user %s: %s", tmpl.sshKeyName, userId, e.getMessage());
-        throw new IllegalArgumentException("Invalid SSH key reference: " + tmpl.sshKeyName);
-      }
-    }
-
     // Set default branch if not provided
     if (tmpl.defaultBranch == null || tmpl.defaultBranch.trim().isEmpty()) {
       tmpl.defaultBranch = "main";
     }
 
-    tmpl.id = null;
-    tmpl.userPreferences = up;
-    templateRepo.persist(tmpl);
-    syncRepo(tmpl);
+    syncRepo(tmpl, access.credential());
+    QuarkusTransaction.joiningExisting().run(() -> {
+      tmpl.id = null;
+      tmpl.userPreferences = userRepo.getEntityManager().getReference(UserPreferences.class,
+          access.userPreferencesId());
+      templateRepo.persist(tmpl);
+    });
     LOG.infof("Created template %s for user %s", tmpl.name, userId);
     return tmpl;
   }
 
-  @Transactional
+  /**
+   * Like {@link #create}: lookups, then Git, then a short write transaction that applies the changes.
+   */
   public Template update(String userId, Long templateId, Template incoming) {
     LOG.debugf("Updating template %d for user %s", templateId, userId);
-    UserPreferences up = userRepo.findByUserId(userId).orElseThrow(() -> {
-      LOG.errorf("User %s not found", userId);
-      return new NotFoundException();
-    });
-    Template existing = templateRepo.findByUserAndId(up.id, templateId).orElseThrow(() -> {
-      LOG.errorf("Template %d for user %s not found", templateId, userId);
-      return new NotFoundException();
+    Validated access = QuarkusTransaction.joiningExisting().call(() -> {
+      Long userPreferencesId = userPreferencesId(userId);
+      findOwned(userPreferencesId, templateId, userId);
+      return new Validated(userPreferencesId, credentialFor(userPreferencesId, userId, incoming.sshKeyName));
     });
 
-    // Validate SSH key reference if provided
-    if (incoming.sshKeyName != null && !incoming.sshKeyName.trim().isEmpty()) {
-      try {
-        sshKeyService.get(userId, incoming.sshKeyName);
-        LOG.debugf("SSH key %s validated for user %s", incoming.sshKeyName, userId);
-      } catch (IllegalArgumentException e) {
-        LOG.errorf("Invalid SSH key reference %s for user %s: %s", incoming.sshKeyName, userId, e.getMessage());
-        throw new IllegalArgumentException("Invalid SSH key reference: " + incoming.sshKeyName);
-      }
-    }
-
-    existing.name = incoming.name;
-    existing.description = incoming.description;
-    existing.repositoryUrl = incoming.repositoryUrl;
-    existing.provider = incoming.provider;
-    existing.defaultBranch = incoming.defaultBranch != null ? incoming.defaultBranch : "main";
-    existing.sshKeyName = incoming.sshKeyName;
-    templateRepo.persist(existing);
-    syncRepo(existing);
+    Template changes = new Template();
+    changes.name = incoming.name;
+    changes.description = incoming.description;
+    changes.repositoryUrl = incoming.repositoryUrl;
+    changes.provider = incoming.provider;
+    changes.defaultBranch = incoming.defaultBranch != null ? incoming.defaultBranch : "main";
+    changes.sshKeyName = incoming.sshKeyName;
+    syncRepo(changes, access.credential());
+
+    Template existing = QuarkusTransaction.joiningExisting().call(() -> {
+      Template t = findOwned(access.userPreferencesId(), templateId, userId);
+      t.name = changes.name;
+      t.description = changes.description;
+      t.repositoryUrl = changes.repositoryUrl;
+      t.provider = changes.provider;
+      t.defaultBranch = changes.defaultBranch;
+      t.sshKeyName = changes.sshKeyName;
+      templateRepo.persist(t);
+      return t;
+    });
     LOG.infof("Updated template %d for user %s", templateId, userId);
     return existing;
   }
@@ -126,50 +118,69 @@ public class TemplateService {
   @Transactional
   public void delete(String userId, Long templateId) {
     LOG.debugf("Deleting template %d for user %s", templateId, userId);
-    UserPreferences up = userRepo.findByUserId(userId).orElseThrow(() -> {
+    if (templateRepo.delete("userPreferences.id = ?1 and id = ?2", userPreferencesId(userId), templateId) == 0) {
+      LOG.errorf("Template %d for user %s not found", templateId, userId);
+      throw new NotFoundException();
+    }
+    LOG.infof("Deleted template %d for user %s", templateId, userId);
+  }
+
+  private Long userPreferencesId(String userId) {
+    return userRepo.findIdByUserId(userId).orElseThrow(() -> {
       LOG.errorf("User %s not found", userId);
       return new NotFoundException();
     });
-    templateRepo.findByUserAndId(up.id, templateId).orElseThrow(() -> {
+  }
+
+  private Template findOwned(Long userPreferencesId, Long templateId, String userId) {
+    return templateRepo.findByUserAndId(userPreferencesId, templateId).orElseThrow(() -> {
       LOG.errorf("Template %d for user %s not found", templateId, userId);
       return new NotFoundException();
     });
-    templateRepo.delete("userPreferences = ?1 and id = ?2", up, templateId);
-    LOG.infof("Deleted template %d for user %s", templateId, userId);
   }
 
-  void syncRepo(Template tmpl) {
+  /**
+   * Resolves the SSH key a template refers to, or {@code null} when it has none.
+   *
+   * @throws IllegalArgumentException
+   *           if the key does not exist
+   */
+  private CredentialRef credentialFor(Long userPreferencesId, String userId, String sshKeyName) {
+    if (sshKeyName == null || sshKeyName.trim().isEmpty()) {
+      return null;
+    }
+    CredentialRef cred = credentialRepo.findByUserAndName(userPreferencesId, sshKeyName.trim()).orElseThrow(() -> {
+      LOG.errorf("Invalid SSH key reference %s for user %s: not found", sshKeyName, userId);
+      return new IllegalArgumentException("Invalid SSH key reference: " + sshKeyName);
+    });
+    LOG.debugf("SSH key %s validated for user %s", sshKeyName, userId);
+    return cred;
+  }
+
+  /** Commits {@code template.yml} for {@code tmpl}; must not be called inside a transaction. */
+  void syncRepo(Template tmpl, CredentialRef cred) {
     try {
       LOG.debugf("Syncing repository %s", tmpl.repositoryUrl);
-      Path work = Files.createTempDirectory("tmpl-repo");
-
-      // Get SSH credential if specified
-      CredentialRef sshCred = null;
-      if (tmpl.sshKeyName != null && !tmpl.sshKeyName.trim().isEmpty()) {
-        try {
-          // We need to get the user ID from the template's user preferences
-          String userId = tmpl.userPreferences.userId;
-          sshCred = sshKeyService.get(userId, tmpl.sshKeyName);
-          LOG.debugf("Using SSH key %s for repository sync", tmpl.sshKeyName);
-        } catch (Exception e) {
-          LOG.warnf("Failed to get SSH key %s, proceeding without SSH: %s", tmpl.sshKeyName, e.getMessage());
-        }
-      }
 
       String branch = tmpl.defaultBranch != null ? tmpl.defaultBranch : "main";
-      Path repo = gitService.cloneShallow(tmpl.repositoryUrl, branch, work, sshCred);
       Map<String, Object> data = new HashMap<>();
       data.put("name", tmpl.name);
       data.put("description", tmpl.description);
       data.put("provider", tmpl.provider);
       data.put("defaultBranch", tmpl.defaultBranch);
-      Path file = repo.resolve("template.yml");
-      Files.writeString(file, yaml.dump(data));
-      gitService.commitAndPush(repo, "TaskTally", "noreply@tasktally.local", "Update template", sshCred);
+      byte[] content = yaml.dump(data).getBytes(StandardCharsets.UTF_8);
+      writeLocks.withLock(tmpl.repositoryUrl, () -> gitService.commitFile(tmpl.repositoryUrl, branch, "template.yml",
+          content, "TaskTally", "noreply@tasktally.local", "Update template", cred));
       LOG.info("Repository synced successfully");
-    } catch (IOException | GitAPIException e) {
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      // IOException or GitAPIException from the commit and push
       LOG.error("Failed to sync template repository", e);
       throw new IllegalStateException("Failed to sync template repository", e);
     }
   }
+
+  private record Validated(Long userPreferencesId, CredentialRef credential) {
+  }
 }
@@ -0,0 +1,60 @@
+-- Outcome counts per template and combination of phase fields, maintained by a trigger on the projection so that
+-- aggregate queries read a handful of rows instead of every outcome. Missing phase fields are counted as ''.
+CREATE TABLE tasktally.outcome_tally (
+  template_id BIGINT NOT NULL,
+  phase_name TEXT NOT NULL DEFAULT '',
+  track TEXT NOT NULL DEFAULT '',
+  product TEXT NOT NULL DEFAULT '',
+  environment TEXT NOT NULL DEFAULT '',
+  outcome_count INTEGER NOT NULL,
+
+  CONSTRAINT outcome_tally_pk PRIMARY KEY (template_id, phase_name, track, product, environment),
+  CONSTRAINT outcome_tally_template_fk
+    FOREIGN KEY (template_id)
+    REFERENCES tasktally.templates(id)
+    ON DELETE CASCADE
+);
+
+CREATE OR REPLACE FUNCTION tasktally.trg_tally_outcome()
+RETURNS TRIGGER AS $$
+BEGIN
+  IF TG_OP = 'UPDATE' AND OLD.template_id = NEW.template_id
+      AND OLD.phase_name IS NOT DISTINCT FROM NEW.phase_name AND OLD.track IS NOT DISTINCT FROM NEW.track
+      AND OLD.product IS NOT DISTINCT FROM NEW.product AND OLD.environment IS NOT DISTINCT FROM NEW.environment THEN
+    RETURN NULL;
+  END IF;
+  IF TG_OP IN ('UPDATE', 'DELETE') THEN
+    UPDATE tasktally.outcome_tally SET outcome_count = outcome_count - 1
+    WHERE template_id = OLD.template_id AND phase_name = coalesce(OLD.phase_name, '')
+      AND track = coalesce(OLD.track, '') AND product = coalesce(OLD.product, '')
+      AND environment = coalesce(OLD.environment, '');
+    DELETE FROM tasktally.outcome_tally
+    WHERE template_id = OLD.template_id AND phase_name = coalesce(OLD.phase_name, '')
+      AND track = coalesce(OLD.track, '') AND product = coalesce(OLD.product, '')
+      AND environment = coalesce(OLD.environment, '') AND outcome_count <= 0;
+  END IF;
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO tasktally.outcome_tally (template_id, phase_name, track, product, environment, outcome_count)
+    VALUES (NEW.template_id, coalesce(NEW.phase_name, ''), coalesce(NEW.track, ''), coalesce(NEW.product, ''),
+      coalesce(NEW.environment, ''), 1)
+    ON CONFLICT (template_id, phase_name, track, product, environment)
+    DO UPDATE SET outcome_count = tasktally.outcome_tally.outcome_count + 1;
+  END IF;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS tally_outcome_projection ON tasktally.outcome_projection;
+CREATE TRIGGER tally_outcome_projection
+AFTER INSERT OR UPDATE OR DELETE ON tasktally.outcome_projection
+FOR EACH ROW EXECUTE FUNCTION tasktally.trg_tally_outcome();
+
+-- Count the outcomes projected before this migration
+INSERT INTO tasktally.outcome_tally (template_id, phase_name, track, product, environment, outcome_count)
+SELECT template_id, coalesce(phase_name, ''), coalesce(track, ''), coalesce(product, ''), coalesce(environment, ''),
+  count(*)
+FROM tasktally.outcome_projection
+GROUP BY 1, 2, 3, 4, 5;
+
+-- Comments for documentation
+COMMENT ON TABLE tasktally.outcome_tally IS 'Projected outcome counts per template and phase fields, kept by trigger';
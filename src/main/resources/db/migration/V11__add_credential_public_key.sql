@@ -0,0 +1,6 @@
+-- Public key line and SHA-256 fingerprint of each credential, recorded when the key is generated or imported so
+-- serving them needs neither the private key nor any crypto. Rows created before this migration are filled in the
+-- first time their public key is requested.
+ALTER TABLE tasktally.credential_refs
+ADD COLUMN public_key TEXT,
+ADD COLUMN fingerprint_sha256 TEXT;
@@ -0,0 +1,32 @@
+-- Outcome changes accepted by the API and not yet pushed to the template's Git repository
+CREATE TABLE tasktally.outcome_outbox (
+  id BIGSERIAL PRIMARY KEY,
+  template_id BIGINT NOT NULL,
+  change_type TEXT NOT NULL,
+  outcome_index BIGINT,
+  payload TEXT,
+  status TEXT NOT NULL DEFAULT 'PENDING',
+  attempts INTEGER NOT NULL DEFAULT 0,
+  next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+  locked_until TIMESTAMP WITH TIME ZONE,
+  last_error TEXT,
+  created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+  updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+  CONSTRAINT outcome_outbox_template_fk
+    FOREIGN KEY (template_id)
+    REFERENCES tasktally.templates(id)
+    ON DELETE CASCADE,
+  CONSTRAINT outcome_outbox_change_type_chk CHECK (change_type IN ('ADD', 'REPLACE', 'REMOVE', 'CLEAR')),
+  CONSTRAINT outcome_outbox_status_chk CHECK (status IN ('PENDING', 'DEAD'))
+);
+
+-- The dispatcher polls for due entries and reads each template's entries in id order
+CREATE INDEX IF NOT EXISTS idx_outcome_outbox_due ON tasktally.outcome_outbox(next_attempt_at) WHERE status = 'PENDING';
+CREATE INDEX IF NOT EXISTS idx_outcome_outbox_template ON tasktally.outcome_outbox(template_id, id);
+
+-- Comments for documentation
+COMMENT ON TABLE tasktally.outcome_outbox IS 'Outcome changes waiting to be committed to Git, delivered in id order per template';
+COMMENT ON COLUMN tasktally.outcome_outbox.payload IS 'Outcome as JSON for ADD and REPLACE changes';
+COMMENT ON COLUMN tasktally.outcome_outbox.status IS 'PENDING until delivered (then deleted), DEAD once retries are exhausted';
+COMMENT ON COLUMN tasktally.outcome_outbox.locked_until IS 'Lease held by the instance currently dispatching the template';
@@ -0,0 +1,39 @@
+-- Publish row changes on the cached tables so every replica can evict its in-process caches.
+-- Notifications are delivered on commit; the payload is JSON with table, op, id and, for templates, the
+-- repository URL before the change.
+CREATE OR REPLACE FUNCTION tasktally.trg_notify_change()
+RETURNS TRIGGER AS $$
+DECLARE
+  payload JSONB;
+BEGIN
+  IF TG_OP = 'DELETE' THEN
+    payload := jsonb_build_object('table', TG_TABLE_NAME, 'op', TG_OP, 'id', OLD.id);
+  ELSE
+    payload := jsonb_build_object('table', TG_TABLE_NAME, 'op', TG_OP, 'id', NEW.id);
+  END IF;
+  IF TG_TABLE_NAME = 'templates' THEN
+    IF TG_OP = 'INSERT' THEN
+      payload := payload || jsonb_build_object('repository_url', NEW.repository_url);
+    ELSE
+      payload := payload || jsonb_build_object('repository_url', OLD.repository_url);
+    END IF;
+  END IF;
+  PERFORM pg_notify('tasktally_changes', payload::text);
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS notify_change_user_preferences ON tasktally.user_preferences;
+CREATE TRIGGER notify_change_user_preferences
+AFTER INSERT OR UPDATE OR DELETE ON tasktally.user_preferences
+FOR EACH ROW EXECUTE FUNCTION tasktally.trg_notify_change();
+
+DROP TRIGGER IF EXISTS notify_change_templates ON tasktally.templates;
+CREATE TRIGGER notify_change_templates
+AFTER INSERT OR UPDATE OR DELETE ON tasktally.templates
+FOR EACH ROW EXECUTE FUNCTION tasktally.trg_notify_change();
+
+DROP TRIGGER IF EXISTS notify_change_credential_refs ON tasktally.credential_refs;
+CREATE TRIGGER notify_change_credential_refs
+AFTER INSERT OR UPDATE OR DELETE ON tasktally.credential_refs
+FOR EACH ROW EXECUTE FUNCTION tasktally.trg_notify_change();
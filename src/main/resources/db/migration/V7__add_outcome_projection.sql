@@ -0,0 +1,40 @@
+-- Read projection of the outcomes stored in Git. Each template's rows mirror its YAML file at the commit recorded in
+-- outcome_projection_state; reads use them while that commit is still the branch tip.
+CREATE TABLE tasktally.outcome_projection_state (
+  template_id BIGINT PRIMARY KEY,
+  commit_id TEXT NOT NULL,
+  blob_id TEXT,
+  synced_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+  CONSTRAINT outcome_projection_state_template_fk
+    FOREIGN KEY (template_id)
+    REFERENCES tasktally.templates(id)
+    ON DELETE CASCADE
+);
+
+CREATE TABLE tasktally.outcome_projection (
+  id BIGSERIAL PRIMARY KEY,
+  template_id BIGINT NOT NULL,
+  position INTEGER NOT NULL,
+  phase_name TEXT,
+  track TEXT,
+  product TEXT,
+  environment TEXT,
+  prefix TEXT,
+  description TEXT,
+  notes TEXT,
+  created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+  updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT NOW(),
+
+  CONSTRAINT outcome_projection_template_fk
+    FOREIGN KEY (template_id)
+    REFERENCES tasktally.templates(id)
+    ON DELETE CASCADE,
+  CONSTRAINT outcome_projection_position_uk UNIQUE (template_id, position)
+);
+
+-- Comments for documentation
+COMMENT ON TABLE tasktally.outcome_projection_state IS 'Commit and blob each template''s projected outcomes were synced from';
+COMMENT ON COLUMN tasktally.outcome_projection_state.blob_id IS 'Blob id of the YAML file, NULL when the file did not exist';
+COMMENT ON TABLE tasktally.outcome_projection IS 'Outcomes of each template as of outcome_projection_state.commit_id';
+COMMENT ON COLUMN tasktally.outcome_projection.position IS 'Zero-based index of the outcome in the YAML file';
@@ -0,0 +1,9 @@
+-- Outcome listings filter a template's projected outcomes by phase fields and page through them in position order
+CREATE INDEX IF NOT EXISTS idx_outcome_projection_phase
+  ON tasktally.outcome_projection(template_id, phase_name, position);
+CREATE INDEX IF NOT EXISTS idx_outcome_projection_track
+  ON tasktally.outcome_projection(template_id, track, position);
+CREATE INDEX IF NOT EXISTS idx_outcome_projection_product
+  ON tasktally.outcome_projection(template_id, product, position);
+CREATE INDEX IF NOT EXISTS idx_outcome_projection_environment
+  ON tasktally.outcome_projection(template_id, environment, position);
@@ -0,0 +1,13 @@
+-- Full-text search over projected outcomes. The vector is maintained by Postgres whenever a row is written, so it is
+-- always as current as the projection itself.
+ALTER TABLE tasktally.outcome_projection
+ADD COLUMN search_vector TSVECTOR GENERATED ALWAYS AS (
+  setweight(to_tsvector('english', coalesce(prefix, '')), 'A')
+  || setweight(to_tsvector('english', coalesce(description, '')), 'B')
+  || setweight(to_tsvector('english', coalesce(notes, '')), 'C')
+) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_outcome_projection_search
+  ON tasktally.outcome_projection USING GIN (search_vector);
+
+COMMENT ON COLUMN tasktally.outcome_projection.search_vector IS 'Weighted words of prefix, description and notes';
@@ -0,0 +1,173 @@
+package io.redhat.na.ssp.tasktally.api;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.security.TestSecurity;
+import io.redhat.na.ssp.tasktally.PostgresTestResource;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.model.UserPreferences;
+import io.redhat.na.ssp.tasktally.repo.OutcomeOutboxRepository;
+import io.redhat.na.ssp.tasktally.repo.OutcomeProjectionStateRepository;
+import io.redhat.na.ssp.tasktally.repo.ProjectedOutcomeRepository;
+import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
+import io.redhat.na.ssp.tasktally.repo.UserPreferencesRepository;
+import io.redhat.na.ssp.tasktally.service.GitYamlService;
+import io.redhat.na.ssp.tasktally.service.OutcomeProjection;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+/**
+ * Outcome changes with the outbox enabled: they are validated, queued and answered with 202.
+ */
+@QuarkusTest
+@QuarkusTestResource(PostgresTestResource.class)
+@TestProfile(OutcomeResourceOutboxTest.OutboxEnabled.class)
+class OutcomeResourceOutboxTest {
+
+  /** Enables the outbox; the dispatcher polls rarely enough that queued changes stay pending during a test. */
+  public static class OutboxEnabled implements QuarkusTestProfile {
+    @Override
+    public Map<String, String> getConfigOverrides() {
+      return Map.of("outcomes.outbox.enabled", "true", "outcomes.outbox.poll-interval", "PT1H");
+    }
+  }
+
+  private static final String TEST_USER_ID = "outbox-user";
+  private static final String OUTCOME_JSON = """
+      {
+        "phase": {
+          "name": "Discovery",
+          "track": "Infrastructure",
+          "product": "OpenShift",
+          "environment": "Production"
+        },
+        "prefix": "INFRA",
+        "description": "Infrastructure assessment completed"
+      }
+      """;
+
+  @Inject
+  UserPreferencesRepository userRepo;
+
+  @Inject
+  TemplateRepository templateRepo;
+
+  @Inject
+  OutcomeOutboxRepository outboxRepo;
+
+  @Inject
+  ProjectedOutcomeRepository projectedRepo;
+
+  @Inject
+  OutcomeProjectionStateRepository stateRepo;
+
+  @Inject
+  OutcomeProjection projection;
+
+  @InjectMock
+  GitYamlService gitYamlService;
+
+  private Long templateId;
+
+  @BeforeEach
+  @Transactional
+  public void setup() {
+    UserPreferences up = new UserPreferences();
+    up.userId = TEST_USER_ID;
+    userRepo.persist(up);
+
+    Template template = new Template();
+    template.name = "Outbox Template";
+    template.repositoryUrl = "git@github.com:test/outbox.git";
+    template.provider = "github";
+    template.defaultBranch = "main";
+    template.yamlPath = "outcomes.yml";
+    template.userPreferences = up;
+    templateRepo.persist(template);
+    templateId = template.id;
+
+    List<Outcome> committed = new ArrayList<>();
+    committed.add(new Outcome("Discovery", "Infrastructure", "OpenShift", "Production", "INFRA", "Existing", null));
+    projection.refresh(templateId, "c1", "b1", committed);
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanup() {
+    outboxRepo.deleteAll();
+    projectedRepo.deleteAll();
+    stateRepo.deleteAll();
+    templateRepo.deleteAll();
+    userRepo.deleteAll();
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void createIsAcceptedAndQueued() throws Exception {
+    given().contentType(ContentType.JSON).body(OUTCOME_JSON).when().post(outcomes()).then().statusCode(202)
+        .body("description", equalTo("Infrastructure assessment completed"));
+
+    assertEquals(List.of(OutcomeOutboxEntry.ChangeType.ADD), pendingChanges());
+    verify(gitYamlService, never()).writeOutcomes(any(), anyList(), any(), any(), anyList());
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void changesToUnknownIndexesAreRejected() {
+    given().contentType(ContentType.JSON).body(OUTCOME_JSON).when().put(outcomes() + "/1").then().statusCode(404);
+    given().when().delete(outcomes() + "/5").then().statusCode(404);
+
+    assertEquals(List.of(), pendingChanges());
+    // Indexes are checked against the projection, not Git
+    verify(gitYamlService, never()).readSnapshot(any(Template.class), any());
+    verify(gitYamlService, never()).syncProjection(any(Template.class), any());
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void indexesAccountForQueuedChanges() {
+    given().contentType(ContentType.JSON).body(OUTCOME_JSON).when().post(outcomes()).then().statusCode(202);
+    // Index 1 exists once the queued create is delivered
+    given().contentType(ContentType.JSON).body(OUTCOME_JSON).when().put(outcomes() + "/1").then().statusCode(202);
+    given().when().delete(outcomes() + "/0").then().statusCode(202);
+    // Only one outcome is left after the queued removal
+    given().when().delete(outcomes() + "/1").then().statusCode(404);
+    given().when().delete(outcomes()).then().statusCode(202);
+    given().when().delete(outcomes() + "/0").then().statusCode(404);
+
+    assertEquals(List.of(OutcomeOutboxEntry.ChangeType.ADD, OutcomeOutboxEntry.ChangeType.REPLACE,
+        OutcomeOutboxEntry.ChangeType.REMOVE, OutcomeOutboxEntry.ChangeType.CLEAR), pendingChanges());
+  }
+
+  private String outcomes() {
+    return "/api/users/" + TEST_USER_ID + "/templates/" + templateId + "/outcomes";
+  }
+
+  private List<OutcomeOutboxEntry.ChangeType> pendingChanges() {
+    return QuarkusTransaction.requiringNew()
+        .call(() -> outboxRepo.listPending(templateId).stream().map(e -> e.changeType).toList());
+  }
+}
@@ -16,6 +16,7 @@ import io.redhat.na.ssp.tasktally.model.Outcome;
 import io.redhat.na.ssp.tasktally.repo.UserPreferencesRepository;
 import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
 import io.redhat.na.ssp.tasktally.service.GitYamlService;
+import io.redhat.na.ssp.tasktally.service.OutcomeSnapshot;
 import io.redhat.na.ssp.tasktally.PostgresTestResource;
 
 import java.util.ArrayList;
@@ -67,8 +68,8 @@ class OutcomeResourceTest {
     // Mock GitYamlService to return empty outcomes list by default
     when(gitYamlService.readOutcomes(org.mockito.ArgumentMatchers.any(Template.class), isNull()))
         .thenReturn(new ArrayList<>());
-    doNothing().when(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), anyList(),
-        isNull());
+    when(gitYamlService.readSnapshot(org.mockito.ArgumentMatchers.any(Template.class), isNull()))
+        .thenReturn(new OutcomeSnapshot("c1", new ArrayList<>()));
   }
 
   @AfterEach
@@ -99,7 +100,36 @@ class OutcomeResourceTest {
 
   @Test
   @TestSecurity(user = TEST_USER_ID, roles = {"user"})
-  void testCreateOutcome() {
+  void testListOutcomes_FilteredAndPaged() {
+    List<Outcome> testOutcomes = new ArrayList<>();
+    testOutcomes.add(new Outcome("Discovery", "Infrastructure", "OpenShift", "Production", "A", "first", null));
+    testOutcomes.add(new Outcome("Discovery", "Security", "RHEL", "Production", "B", "second", null));
+    testOutcomes.add(new Outcome("Discovery", "Infrastructure", "RHEL", "Production", "C", "third", null));
+    when(gitYamlService.readOutcomes(org.mockito.ArgumentMatchers.any(Template.class), isNull()))
+        .thenReturn(testOutcomes);
+
+    String cursor = given().when()
+        .get("/api/users/" + TEST_USER_ID + "/templates/" + templateId + "/outcomes?track=Infrastructure&limit=1")
+        .then().statusCode(200).body("size()", equalTo(1)).body("[0].id", equalTo(0))
+        .body("[0].description", equalTo("first")).header("X-Next-Cursor", notNullValue()).extract()
+        .header("X-Next-Cursor");
+
+    given().when().get("/api/users/" + TEST_USER_ID + "/templates/" + templateId
+        + "/outcomes?track=Infrastructure&limit=1&cursor=" + cursor).then().statusCode(200)
+        .body("size()", equalTo(1)).body("[0].id", equalTo(2)).body("[0].description", equalTo("third"))
+        .header("X-Next-Cursor", nullValue());
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void testListOutcomes_UnknownSortField() {
+    given().when().get("/api/users/" + TEST_USER_ID + "/templates/" + templateId + "/outcomes?sort=color").then()
+        .statusCode(400);
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void testCreateOutcome() throws Exception {
     String outcomeJson = """
         {
           "phase": {
@@ -123,7 +153,8 @@ class OutcomeResourceTest {
         .body("notes", equalTo("Focus on security and scalability"));
 
     // Verify that writeOutcomes was called
-    verify(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), anyList(), isNull());
+    verify(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), anyList(), eq("c1"),
+        isNull(), anyList());
   }
 
   @Test
@@ -143,14 +174,14 @@ class OutcomeResourceTest {
 
   @Test
   @TestSecurity(user = TEST_USER_ID, roles = {"user"})
-  void testUpdateOutcome() {
+  void testUpdateOutcome() throws Exception {
     // Mock to return an existing outcome
     List<Outcome> existingOutcomes = new ArrayList<>();
     Outcome existingOutcome = new Outcome("Discovery", "Infrastructure", "OpenShift", "Production", "INFRA",
         "Old description", "Old notes");
     existingOutcomes.add(existingOutcome);
-    when(gitYamlService.readOutcomes(org.mockito.ArgumentMatchers.any(Template.class), isNull()))
-        .thenReturn(existingOutcomes);
+    when(gitYamlService.readSnapshot(org.mockito.ArgumentMatchers.any(Template.class), isNull()))
+        .thenReturn(new OutcomeSnapshot("c1", existingOutcomes));
 
     String outcomeJson = """
         {
@@ -174,36 +205,38 @@ class OutcomeResourceTest {
         .body("description", equalTo("Security baseline established")).body("notes", equalTo("Follow CIS benchmarks"));
 
     // Verify that writeOutcomes was called
-    verify(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), anyList(), isNull());
+    verify(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), anyList(), eq("c1"),
+        isNull(), anyList());
   }
 
   @Test
   @TestSecurity(user = TEST_USER_ID, roles = {"user"})
-  void testDeleteOutcome() {
+  void testDeleteOutcome() throws Exception {
     // Mock to return an existing outcome
     List<Outcome> existingOutcomes = new ArrayList<>();
     Outcome existingOutcome = new Outcome("Discovery", "Infrastructure", "OpenShift", "Production", "INFRA",
         "Description", "Notes");
     existingOutcomes.add(existingOutcome);
-    when(gitYamlService.readOutcomes(org.mockito.ArgumentMatchers.any(Template.class), isNull()))
-        .thenReturn(existingOutcomes);
+    when(gitYamlService.readSnapshot(org.mockito.ArgumentMatchers.any(Template.class), isNull()))
+        .thenReturn(new OutcomeSnapshot("c1", existingOutcomes));
 
     given().when().delete("/api/users/" + TEST_USER_ID + "/templates/" + templateId + "/outcomes/0").then()
         .statusCode(204);
 
     // Verify that writeOutcomes was called
-    verify(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), anyList(), isNull());
+    verify(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), anyList(), eq("c1"),
+        isNull(), anyList());
   }
 
   @Test
   @TestSecurity(user = TEST_USER_ID, roles = {"user"})
-  void testDeleteAllOutcomes() {
+  void testDeleteAllOutcomes() throws Exception {
     given().when().delete("/api/users/" + TEST_USER_ID + "/templates/" + templateId + "/outcomes").then()
         .statusCode(204);
 
     // Verify that writeOutcomes was called with empty list
     verify(gitYamlService).writeOutcomes(org.mockito.ArgumentMatchers.any(Template.class), eq(new ArrayList<>()),
-        isNull());
+        eq("c1"), isNull(), anyList());
   }
 
   @Test
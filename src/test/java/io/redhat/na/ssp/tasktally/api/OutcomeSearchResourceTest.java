@@ -0,0 +1,116 @@
+package io.redhat.na.ssp.tasktally.api;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.InjectMock;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import io.redhat.na.ssp.tasktally.model.OutcomeProjectionState;
+import io.redhat.na.ssp.tasktally.model.ProjectedOutcome;
+import io.redhat.na.ssp.tasktally.model.UserPreferences;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.repo.OutcomeProjectionStateRepository;
+import io.redhat.na.ssp.tasktally.repo.ProjectedOutcomeRepository;
+import io.redhat.na.ssp.tasktally.repo.UserPreferencesRepository;
+import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
+import io.redhat.na.ssp.tasktally.service.GitYamlService;
+import io.redhat.na.ssp.tasktally.PostgresTestResource;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+
+@QuarkusTest
+@QuarkusTestResource(PostgresTestResource.class)
+class OutcomeSearchResourceTest {
+
+  @Inject
+  UserPreferencesRepository userRepo;
+
+  @Inject
+  TemplateRepository templateRepo;
+
+  @Inject
+  ProjectedOutcomeRepository projectedRepo;
+
+  @Inject
+  OutcomeProjectionStateRepository stateRepo;
+
+  @InjectMock
+  GitYamlService gitYamlService;
+
+  private static final String TEST_USER_ID = "test-user";
+  private Long templateId;
+
+  @BeforeEach
+  @Transactional
+  public void setup() {
+    UserPreferences up = new UserPreferences();
+    up.userId = TEST_USER_ID;
+    userRepo.persist(up);
+
+    Template template = new Template();
+    template.name = "Search Template";
+    template.repositoryUrl = "git@github.com:test/repo.git";
+    template.provider = "github";
+    template.defaultBranch = "main";
+    template.yamlPath = "outcomes.yml";
+    template.userPreferences = up;
+    templateRepo.persist(template);
+    templateId = template.id;
+
+    // Outcomes as projected from Git at commit c1
+    OutcomeProjectionState state = new OutcomeProjectionState();
+    state.templateId = templateId;
+    state.commitId = "c1";
+    stateRepo.persist(state);
+    projectedRepo.persist(row(0, "INFRA", "Cluster installed", "Three control plane nodes"));
+    projectedRepo.persist(row(1, "SEC", "Security baseline established", "Follow CIS benchmarks"));
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanup() {
+    templateRepo.deleteAll();
+    userRepo.deleteAll();
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void testSearchMatchesDescriptionAndNotes() {
+    given().when().get("/api/users/" + TEST_USER_ID + "/outcomes/search?q=benchmark").then().statusCode(200)
+        .contentType(ContentType.JSON).body("size()", equalTo(1)).body("[0].templateId", equalTo(templateId.intValue()))
+        .body("[0].templateName", equalTo("Search Template")).body("[0].outcome.id", equalTo(1))
+        .body("[0].outcome.prefix", equalTo("SEC"));
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void testSearchWithoutQuery() {
+    given().when().get("/api/users/" + TEST_USER_ID + "/outcomes/search").then().statusCode(400);
+  }
+
+  @Test
+  @TestSecurity(user = "other-user", roles = {"user"})
+  void testSearchAccessDenied_DifferentUser() {
+    given().when().get("/api/users/" + TEST_USER_ID + "/outcomes/search?q=cluster").then().statusCode(403);
+  }
+
+  private ProjectedOutcome row(int position, String prefix, String description, String notes) {
+    ProjectedOutcome row = new ProjectedOutcome();
+    row.templateId = templateId;
+    row.position = position;
+    row.phaseName = "Discovery";
+    row.track = "Infrastructure";
+    row.product = "OpenShift";
+    row.environment = "Production";
+    row.prefix = prefix;
+    row.description = description;
+    row.notes = notes;
+    return row;
+  }
+}
@@ -0,0 +1,136 @@
+package io.redhat.na.ssp.tasktally.api;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.security.TestSecurity;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.InjectMock;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import io.redhat.na.ssp.tasktally.model.OutcomeProjectionState;
+import io.redhat.na.ssp.tasktally.model.ProjectedOutcome;
+import io.redhat.na.ssp.tasktally.model.UserPreferences;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.repo.OutcomeProjectionStateRepository;
+import io.redhat.na.ssp.tasktally.repo.ProjectedOutcomeRepository;
+import io.redhat.na.ssp.tasktally.repo.UserPreferencesRepository;
+import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
+import io.redhat.na.ssp.tasktally.service.GitYamlService;
+import io.redhat.na.ssp.tasktally.PostgresTestResource;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.CoreMatchers.*;
+
+@QuarkusTest
+@QuarkusTestResource(PostgresTestResource.class)
+class OutcomeTallyResourceTest {
+
+  @Inject
+  UserPreferencesRepository userRepo;
+
+  @Inject
+  TemplateRepository templateRepo;
+
+  @Inject
+  ProjectedOutcomeRepository projectedRepo;
+
+  @Inject
+  OutcomeProjectionStateRepository stateRepo;
+
+  @InjectMock
+  GitYamlService gitYamlService;
+
+  private static final String TEST_USER_ID = "test-user";
+  private Long templateId;
+
+  @BeforeEach
+  @Transactional
+  public void setup() {
+    UserPreferences up = new UserPreferences();
+    up.userId = TEST_USER_ID;
+    userRepo.persist(up);
+
+    Template template = new Template();
+    template.name = "Tally Template";
+    template.repositoryUrl = "git@github.com:test/repo.git";
+    template.provider = "github";
+    template.defaultBranch = "main";
+    template.yamlPath = "outcomes.yml";
+    template.userPreferences = up;
+    templateRepo.persist(template);
+    templateId = template.id;
+
+    // Outcomes as projected from Git at commit c1
+    OutcomeProjectionState state = new OutcomeProjectionState();
+    state.templateId = templateId;
+    state.commitId = "c1";
+    stateRepo.persist(state);
+    projectedRepo.persist(row(0, "Infrastructure", "Cluster installed"));
+    projectedRepo.persist(row(1, "Security", "Security baseline established"));
+    projectedRepo.persist(row(2, "Infrastructure", "Registry configured"));
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanup() {
+    templateRepo.deleteAll();
+    userRepo.deleteAll();
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void testTallyGroupedByTrack() {
+    given().when().get("/api/users/" + TEST_USER_ID + "/outcomes/tally?groupBy=track").then().statusCode(200)
+        .contentType(ContentType.JSON).body("size()", equalTo(2)).body("[0].group.track", equalTo("Infrastructure"))
+        .body("[0].count", equalTo(2)).body("[1].group.track", equalTo("Security")).body("[1].count", equalTo(1));
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void testTallyFollowsProjectionChanges() {
+    moveToSecurity(0);
+
+    given().when().get("/api/users/" + TEST_USER_ID + "/templates/" + templateId + "/outcomes/tally?groupBy=track")
+        .then().statusCode(200).body("size()", equalTo(2)).body("[0].group.track", equalTo("Security"))
+        .body("[0].count", equalTo(2));
+    given().when().get("/api/users/" + TEST_USER_ID + "/templates/" + templateId + "/outcomes/tally").then()
+        .statusCode(200).body("size()", equalTo(1)).body("[0].count", equalTo(3));
+  }
+
+  @Test
+  @TestSecurity(user = TEST_USER_ID, roles = {"user"})
+  void testTallyUnknownGroupBy() {
+    given().when().get("/api/users/" + TEST_USER_ID + "/outcomes/tally?groupBy=color").then().statusCode(400);
+  }
+
+  @Test
+  @TestSecurity(user = "other-user", roles = {"user"})
+  void testTallyAccessDenied_DifferentUser() {
+    given().when().get("/api/users/" + TEST_USER_ID + "/outcomes/tally").then().statusCode(403);
+  }
+
+  private void moveToSecurity(int position) {
+    QuarkusTransaction.requiringNew().run(() -> {
+      ProjectedOutcome row = projectedRepo.find("templateId = ?1 and position = ?2", templateId, position)
+          .firstResult();
+      row.track = "Security";
+    });
+  }
+
+  private ProjectedOutcome row(int position, String track, String description) {
+    ProjectedOutcome row = new ProjectedOutcome();
+    row.templateId = templateId;
+    row.position = position;
+    row.phaseName = "Discovery";
+    row.track = track;
+    row.product = "OpenShift";
+    row.environment = "Production";
+    row.prefix = "P";
+    row.description = description;
+    return row;
+  }
+}
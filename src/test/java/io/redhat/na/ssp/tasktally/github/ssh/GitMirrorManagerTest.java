@@ -0,0 +1,92 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import org.eclipse.jgit.lib.Repository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GitMirrorManagerTest {
+
+  @TempDir
+  Path tempDir;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void reusesMirrorPerUriAndBranch() throws Exception {
+    GitMirrorManager manager = manager(Duration.ofHours(1), 8);
+    try {
+      Repository first = manager.withMirror("git@example.com:a.git", "main", repo -> repo);
+      Repository second = manager.withMirror("git@example.com:a.git", "main", repo -> repo);
+      Repository other = manager.withMirror("git@example.com:a.git", "develop", repo -> repo);
+
+      assertSame(first, second);
+      assertTrue(first.isBare());
+      assertNotEquals(first.getDirectory(), other.getDirectory());
+      assertEquals(0.0, registry.get("git.mirror.disk.usage").gauge().value());
+      assertEquals(0, manager.sweep());
+      assertTrue(registry.get("git.mirror.disk.usage").gauge().value() > 0);
+      assertEquals(2.0, registry.get("git.mirror.count").gauge().value());
+    } finally {
+      manager.close();
+    }
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedMirrorsBeyondMaxCount() throws Exception {
+    GitMirrorManager manager = manager(Duration.ofHours(1), 1);
+    try {
+      Repository first = manager.withMirror("git@example.com:a.git", "main", repo -> repo);
+      Thread.sleep(5);
+      Repository second = manager.withMirror("git@example.com:b.git", "main", repo -> repo);
+
+      assertEquals(1, manager.sweep());
+      assertFalse(Files.exists(first.getDirectory().toPath()));
+      assertTrue(Files.exists(second.getDirectory().toPath()));
+
+      Repository recreated = manager.withMirror("git@example.com:a.git", "main", repo -> repo);
+      assertNotSame(first, recreated);
+      assertTrue(Files.isDirectory(recreated.getDirectory().toPath().resolve("objects")));
+    } finally {
+      manager.close();
+    }
+  }
+
+  @Test
+  void adoptsAndExpiresIdleMirrorsFromEarlierRuns() throws Exception {
+    Path stale = Files.createDirectories(tempDir.resolve(GitMirrorManager.key("git@example.com:a.git", "main")));
+    Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+    Path fresh = Files.createDirectories(tempDir.resolve(GitMirrorManager.key("git@example.com:b.git", "main")));
+
+    GitMirrorManager manager = manager(Duration.ofHours(1), 8);
+    try {
+      manager.adopt();
+      assertEquals(1, manager.sweep());
+      assertFalse(Files.exists(stale));
+      assertTrue(Files.exists(fresh));
+    } finally {
+      manager.close();
+    }
+  }
+
+  private GitMirrorManager manager(Duration idleTimeout, int maxCount) {
+    GitMirrorManager manager = new GitMirrorManager(Optional.of(tempDir.toString()), idleTimeout, maxCount, registry);
+    manager.registerMetrics();
+    return manager;
+  }
+}
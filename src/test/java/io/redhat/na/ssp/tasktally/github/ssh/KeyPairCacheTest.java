@@ -0,0 +1,146 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyEncryptionContext;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyPairResourceWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+
+class KeyPairCacheTest {
+
+  private static KeyPair userKey;
+  private static byte[] encrypted;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private KeyPairCache cache;
+
+  @BeforeAll
+  static void generateKey() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(256);
+    userKey = generator.generateKeyPair();
+    OpenSSHKeyEncryptionContext encryption = new OpenSSHKeyEncryptionContext();
+    encryption.setCipherName("AES");
+    encryption.setCipherMode("CTR");
+    encryption.setCipherType("256");
+    encryption.setKdfRounds(4);
+    encryption.setPassword("secret");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    OpenSSHKeyPairResourceWriter.INSTANCE.writePrivateKey(userKey, "test", encryption, out);
+    encrypted = out.toByteArray();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (cache != null) {
+      cache.close();
+    }
+  }
+
+  @Test
+  void decodesOncePerCredentialAndSecretVersion() throws Exception {
+    cache = cache(8, Duration.ofMinutes(15));
+    CredentialRef cred = credential(1L);
+
+    List<KeyPair> first = cache.get(cred, encrypted, "secret".toCharArray());
+    List<KeyPair> second = cache.get(cred, encrypted, "secret".toCharArray());
+
+    assertEquals(userKey.getPublic(), first.get(0).getPublic());
+    assertSame(first, second);
+    assertEquals(1.0, gets("hit"));
+    assertEquals(1.0, gets("miss"));
+    assertEquals(1.0, registry.get("cache.size").tag("cache", "ssh-keys").gauge().value());
+  }
+
+  @Test
+  void changedSecretsAndInvalidationDecodeAgain() throws Exception {
+    cache = cache(8, Duration.ofMinutes(15));
+    CredentialRef cred = credential(1L);
+    byte[] reformatted = new String(encrypted).replace("\n", "\r\n").getBytes();
+
+    List<KeyPair> first = cache.get(cred, encrypted, "secret".toCharArray());
+    List<KeyPair> changed = cache.get(cred, reformatted, "secret".toCharArray());
+    cache.invalidate(cred);
+    List<KeyPair> reloaded = cache.get(cred, reformatted, "secret".toCharArray());
+
+    assertNotSame(first, changed);
+    assertNotSame(changed, reloaded);
+    assertEquals(3.0, gets("miss"));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void expiredAndOverflowingEntriesAreDropped() throws Exception {
+    cache = cache(1, Duration.ZERO);
+
+    cache.get(credential(1L), encrypted, "secret".toCharArray());
+    cache.get(credential(2L), encrypted, "secret".toCharArray());
+    assertEquals(1, cache.size());
+
+    Thread.sleep(1);
+    cache.sweep();
+    assertEquals(0, cache.size());
+    cache.get(credential(2L), encrypted, "secret".toCharArray());
+    assertEquals(3.0, gets("miss"));
+  }
+
+  @Test
+  void expiredAndOverflowingEntriesAreDestroyed() throws Exception {
+    cache = spy(cache(1, Duration.ZERO));
+
+    List<KeyPair> first = cache.get(credential(1L), encrypted, "secret".toCharArray());
+    List<KeyPair> second = cache.get(credential(2L), encrypted, "secret".toCharArray());
+    verify(cache).destroy(first);
+
+    Thread.sleep(1);
+    cache.sweep();
+    verify(cache).destroy(second);
+  }
+
+  @Test
+  void heldKeysAreDestroyedOnlyAfterTheHoldIsClosed() throws Exception {
+    cache = spy(cache(8, Duration.ofMinutes(15)));
+    CredentialRef cred = credential(1L);
+
+    KeyPairCache.Hold hold = cache.hold(cred, encrypted, "secret".toCharArray());
+    assertSame(hold.keys(), cache.get(cred, encrypted, "secret".toCharArray()));
+    cache.invalidate(cred);
+    verify(cache, never()).destroy(hold.keys());
+
+    hold.close();
+    hold.close();
+    verify(cache).destroy(hold.keys());
+  }
+
+  private KeyPairCache cache(int maxSize, Duration ttl) {
+    KeyPairCache created = new KeyPairCache(maxSize, ttl, registry);
+    created.registerMetrics();
+    return created;
+  }
+
+  private double gets(String result) {
+    return registry.get("cache.gets").tag("cache", "ssh-keys").tag("result", result).functionCounter().count();
+  }
+
+  private static CredentialRef credential(Long id) {
+    CredentialRef cred = new CredentialRef();
+    cred.id = id;
+    return cred;
+  }
+}
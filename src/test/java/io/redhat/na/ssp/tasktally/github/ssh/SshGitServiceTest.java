@@ -0,0 +1,205 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand.ResetType;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+
+public class SshGitServiceTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Path origin;
+  private String uri;
+  private SshGitService service;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    origin = tempDir.resolve("origin");
+    try (Git git = Git.init().setDirectory(origin.toFile()).setInitialBranch("main").call()) {
+      commit(git, "outcomes.yml", "outcomes: []\n");
+    }
+    uri = origin.toUri().toString();
+    service = new SshGitService();
+    service.mirrors = new GitMirrorManager(Optional.of(tempDir.resolve("mirrors").toString()), Duration.ofHours(1), 8,
+        new SimpleMeterRegistry());
+    service.sessions = new SshSessionFactoryPool(4, Duration.ofMinutes(10));
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.mirrors.close();
+    service.sessions.close();
+  }
+
+  @Test
+  void readFileReadsBlobWithoutWorkingTree() throws Exception {
+    GitBlob first = service.readFile(uri, "main", "outcomes.yml", null);
+    assertEquals("outcomes: []\n", new String(first.content(), StandardCharsets.UTF_8));
+    assertNotNull(first.commitId());
+
+    try (Git git = Git.open(origin.toFile())) {
+      commit(git, "outcomes.yml", "outcomes: [1]\n");
+    }
+
+    GitBlob second = service.readFile(uri, "main", "outcomes.yml", null);
+    assertEquals("outcomes: [1]\n", new String(second.content(), StandardCharsets.UTF_8));
+    assertNotEquals(first.commitId(), second.commitId());
+    assertNotEquals(first.blobId(), second.blobId());
+  }
+
+  @Test
+  void remoteTipMatchesFetchedCommit() throws Exception {
+    GitBlob blob = service.readFile(uri, "main", "outcomes.yml", null);
+    assertEquals(blob.commitId(), service.remoteTip(uri, "main", null));
+    assertNull(service.remoteTip(uri, "missing", null));
+  }
+
+  @Test
+  void readFileReportsMissingPath() throws Exception {
+    GitBlob blob = service.readFile(uri, "main", "missing.yml", null);
+    assertFalse(blob.exists());
+    assertNotNull(blob.commitId());
+  }
+
+  @Test
+  void commitFilePushesInMemoryCommit() throws Exception {
+    try (Git git = Git.open(origin.toFile())) {
+      commit(git, "docs/readme.md", "docs\n");
+    }
+
+    byte[] content = "outcomes: [2]\n".getBytes(StandardCharsets.UTF_8);
+    String commitId = service.commitFile(uri, "main", "outcomes.yml", content, "bot", "bot@example.com",
+        "Update outcomes.yml", null);
+
+    try (Git git = Git.open(origin.toFile())) {
+      assertEquals(commitId, git.getRepository().resolve("refs/heads/main").name());
+      git.reset().setMode(ResetType.HARD).call();
+    }
+    assertEquals("outcomes: [2]\n", Files.readString(origin.resolve("outcomes.yml")));
+    assertEquals("docs\n", Files.readString(origin.resolve("docs/readme.md")));
+    GitBlob blob = service.readFile(uri, "main", "outcomes.yml", null);
+    assertEquals(commitId, blob.commitId());
+  }
+
+  @Test
+  void commitFileRejectsStaleParent() throws Exception {
+    GitBlob before = service.readFile(uri, "main", "outcomes.yml", null);
+    try (Git git = Git.open(origin.toFile())) {
+      commit(git, "outcomes.yml", "outcomes: [3]\n");
+    }
+
+    byte[] content = "outcomes: [4]\n".getBytes(StandardCharsets.UTF_8);
+    assertThrows(PushRejectedException.class, () -> service.commitFile(uri, "main", "outcomes.yml", content,
+        before.commitId(), "bot", "bot@example.com", "Update outcomes.yml", null));
+    try (Git git = Git.open(origin.toFile())) {
+      git.reset().setMode(ResetType.HARD).call();
+    }
+    assertEquals("outcomes: [3]\n", Files.readString(origin.resolve("outcomes.yml")));
+  }
+
+  @Test
+  void commitFileSkipsUnchangedContent() throws Exception {
+    GitBlob before = service.readFile(uri, "main", "outcomes.yml", null);
+    byte[] content = "outcomes: []\n".getBytes(StandardCharsets.UTF_8);
+    String commitId = service.commitFile(uri, "main", "outcomes.yml", content, "bot", "bot@example.com",
+        "Update outcomes.yml", null);
+    assertEquals(before.commitId(), commitId);
+  }
+
+  @Test
+  void readFileFetchesOnlyTheRequestedBlob() throws Exception {
+    allowFilters(true);
+    ObjectId large;
+    try (Git git = Git.open(origin.toFile())) {
+      commit(git, "assets/large.bin", "x".repeat(100_000));
+      large = git.getRepository().resolve("HEAD:assets/large.bin");
+    }
+
+    GitBlob blob = service.readFile(uri, "main", "outcomes.yml", null);
+    assertEquals("outcomes: []\n", new String(blob.content(), StandardCharsets.UTF_8));
+    assertFalse(inMirror(large));
+    assertTrue(inMirror(ObjectId.fromString(blob.blobId())));
+
+    byte[] content = "outcomes: [5]\n".getBytes(StandardCharsets.UTF_8);
+    service.commitFile(uri, "main", "outcomes.yml", content, blob.commitId(), "bot", "bot@example.com",
+        "Update outcomes.yml", null);
+    try (Git git = Git.open(origin.toFile())) {
+      git.reset().setMode(ResetType.HARD).call();
+    }
+    assertEquals("x".repeat(100_000), Files.readString(origin.resolve("assets/large.bin")));
+    assertFalse(inMirror(large));
+  }
+
+  @Test
+  void readFileFallsBackWhenFiltersAreNotSupported() throws Exception {
+    allowFilters(false);
+    ObjectId large;
+    try (Git git = Git.open(origin.toFile())) {
+      commit(git, "assets/large.bin", "x".repeat(100_000));
+      large = git.getRepository().resolve("HEAD:assets/large.bin");
+    }
+
+    GitBlob blob = service.readFile(uri, "main", "outcomes.yml", null);
+    assertEquals("outcomes: []\n", new String(blob.content(), StandardCharsets.UTF_8));
+    assertTrue(inMirror(large));
+  }
+
+  @Test
+  void cloneShallowChecksOutOnlyRequestedPaths() throws Exception {
+    allowFilters(true);
+    try (Git git = Git.open(origin.toFile())) {
+      commit(git, "template.yml", "name: t\n");
+      commit(git, "assets/large.bin", "x".repeat(100_000));
+    }
+
+    Path dir = tempDir.resolve("clone");
+    service.cloneShallow(uri, "main", dir, null, "template.yml", "missing.yml");
+    assertEquals("name: t\n", Files.readString(dir.resolve("template.yml")));
+    assertFalse(Files.exists(dir.resolve("outcomes.yml")));
+    assertFalse(Files.exists(dir.resolve("assets/large.bin")));
+  }
+
+  private void allowFilters(boolean allow) throws Exception {
+    try (Git git = Git.open(origin.toFile())) {
+      StoredConfig config = git.getRepository().getConfig();
+      config.setBoolean("uploadpack", null, "allowfilter", allow);
+      config.setBoolean("uploadpack", null, "allowanysha1inwant", allow);
+      config.save();
+    }
+  }
+
+  private boolean inMirror(ObjectId id) throws Exception {
+    return service.mirrors.withMirror(uri, "main", mirror -> mirror.getObjectDatabase().has(id));
+  }
+
+  private static void commit(Git git, String path, String content) throws Exception {
+    Path file = git.getRepository().getWorkTree().toPath().resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.writeString(file, content);
+    git.add().addFilepattern(".").call();
+    git.commit().setAuthor("t", "t@example.com").setMessage("update " + path).call();
+  }
+}
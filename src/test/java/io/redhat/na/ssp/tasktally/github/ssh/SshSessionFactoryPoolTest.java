@@ -0,0 +1,212 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.eclipse.jgit.transport.sshd.SshdSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+
+public class SshSessionFactoryPoolTest {
+
+  private SshSessionFactoryPool pool;
+  private final AtomicInteger created = new AtomicInteger();
+  private final List<SshdSessionFactory> factories = new CopyOnWriteArrayList<>();
+  private final Set<SshdSessionFactory> closed = ConcurrentHashMap.newKeySet();
+
+  @BeforeEach
+  void setUp() {
+    pool = new SshSessionFactoryPool(2, Duration.ofMinutes(10));
+  }
+
+  @AfterEach
+  void tearDown() {
+    pool.close();
+  }
+
+  @Test
+  void reusesFactoryForSameCredentialAndSecret() throws Exception {
+    CredentialRef cred = credential(1L);
+    SshdSessionFactory first;
+    try (SshSessionFactoryPool.Lease lease = pool.acquire(cred, secrets("key"), null, this::load)) {
+      first = lease.factory();
+    }
+    try (SshSessionFactoryPool.Lease lease = pool.acquire(cred, secrets("key"), null, this::load)) {
+      assertSame(first, lease.factory());
+    }
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  void replacesFactoryWhenSecretChanges() throws Exception {
+    CredentialRef cred = credential(1L);
+    SshdSessionFactory first;
+    try (SshSessionFactoryPool.Lease lease = pool.acquire(cred, secrets("key"), null, this::load)) {
+      first = lease.factory();
+    }
+    try (SshSessionFactoryPool.Lease lease = pool.acquire(cred, secrets("rotated"), null, this::load)) {
+      assertNotSame(first, lease.factory());
+    }
+    assertEquals(2, created.get());
+    assertTrue(closed.contains(factories.get(0)));
+    assertEquals(1, pool.size());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedButKeepsLeasedFactoryOpen() throws Exception {
+    SshSessionFactoryPool.Lease held = pool.acquire(credential(1L), secrets("a"), null, this::load);
+    pool.acquire(credential(2L), secrets("b"), null, this::load).close();
+    pool.acquire(credential(3L), secrets("c"), null, this::load).close();
+
+    assertEquals(2, pool.size());
+    assertFalse(closed.contains(factories.get(0)));
+    held.close();
+    assertTrue(closed.contains(factories.get(0)));
+  }
+
+  @Test
+  void clearDropsAllFactoriesOnceReturned() throws Exception {
+    SshSessionFactoryPool.Lease held = pool.acquire(credential(1L), secrets("a"), null, this::load);
+    pool.acquire(credential(2L), secrets("b"), null, this::load).close();
+
+    pool.clear();
+    assertEquals(0, pool.size());
+    assertTrue(closed.contains(factories.get(1)));
+    assertFalse(closed.contains(factories.get(0)));
+    held.close();
+    assertTrue(closed.contains(factories.get(0)));
+  }
+
+  @Test
+  void evictsIdleFactories() throws Exception {
+    pool = new SshSessionFactoryPool(2, Duration.ZERO);
+    pool.acquire(credential(1L), secrets("a"), null, this::load).close();
+    Thread.sleep(1);
+    pool.acquire(credential(2L), secrets("b"), null, this::load).close();
+
+    assertEquals(1, pool.size());
+    assertTrue(closed.contains(factories.get(0)));
+  }
+
+  @Test
+  void slowLoadDoesNotBlockOtherCredentials() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<SshdSessionFactory> slow = executor.submit(() -> {
+        try (SshSessionFactoryPool.Lease lease = pool.acquire(credential(1L), secrets("a"), null, owned -> {
+          loading.countDown();
+          try {
+            release.await();
+          } catch (InterruptedException e) {
+            throw new IOException(e);
+          }
+          return load(owned);
+        })) {
+          return lease.factory();
+        }
+      });
+      assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+      // Another credential is served while the first is still loading
+      pool.acquire(credential(2L), secrets("b"), null, this::load).close();
+      // The same credential waits for the factory being built instead of loading its own
+      Future<SshdSessionFactory> waiting = executor.submit(() -> {
+        try (SshSessionFactoryPool.Lease lease = pool.acquire(credential(1L), secrets("a"), null, this::load)) {
+          return lease.factory();
+        }
+      });
+      assertFalse(slow.isDone());
+      release.countDown();
+
+      assertSame(slow.get(5, TimeUnit.SECONDS), waiting.get(5, TimeUnit.SECONDS));
+      assertEquals(2, created.get());
+    } finally {
+      release.countDown();
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void failedLoadIsNotPooled() throws Exception {
+    assertThrows(IOException.class, () -> pool.acquire(credential(1L), secrets("a"), null, owned -> {
+      throw new IOException("bad key");
+    }));
+    assertEquals(0, pool.size());
+    pool.acquire(credential(1L), secrets("a"), null, this::load).close();
+    assertEquals(1, created.get());
+  }
+
+  @Test
+  void ownedResourcesAreClosedWithTheFactory() throws Exception {
+    AtomicInteger released = new AtomicInteger();
+    SshSessionFactoryPool.Lease held = pool.acquire(credential(1L), secrets("a"), null, owned -> {
+      owned.accept(released::incrementAndGet);
+      return load(owned);
+    });
+    assertThrows(IOException.class, () -> pool.acquire(credential(2L), secrets("b"), null, owned -> {
+      owned.accept(released::incrementAndGet);
+      throw new IOException("bad key");
+    }));
+    assertEquals(1, released.get());
+
+    pool.invalidate(credential(1L));
+    assertEquals(1, released.get());
+    held.close();
+    assertEquals(2, released.get());
+  }
+
+  @Test
+  void versionCoversPassphrase() {
+    List<byte[]> secrets = secrets("key");
+    assertFalse(SshSessionFactoryPool.version(secrets, null)
+        .equals(SshSessionFactoryPool.version(secrets, "secret".toCharArray())));
+  }
+
+  private SshdSessionFactory load(Consumer<AutoCloseable> owned) {
+    created.incrementAndGet();
+    SshdSessionFactory factory = new SshdSessionFactory(null, null) {
+      @Override
+      public void close() {
+        closed.add(this);
+        super.close();
+      }
+    };
+    factories.add(factory);
+    return factory;
+  }
+
+  private static List<byte[]> secrets(String value) {
+    return List.of(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static CredentialRef credential(Long id) {
+    CredentialRef cred = new CredentialRef();
+    cred.id = id;
+    cred.name = "cred-" + id;
+    return cred;
+  }
+}
@@ -2,87 +2,111 @@ package io.redhat.na.ssp.tasktally.github.ssh;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
-
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.apache.sshd.common.config.keys.PublicKeyEntry;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyEncryptionContext;
+import org.apache.sshd.common.config.keys.writer.openssh.OpenSSHKeyPairResourceWriter;
 import org.eclipse.jgit.transport.sshd.SshdSessionFactory;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.io.TempDir;
 
 public class TaskTallySshdSessionFactoryTest {
 
+  private static KeyPair userKey;
+  private static KeyPair hostKey;
+  private static KeyPair otherKey;
+
+  @BeforeAll
+  static void generateKeys() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+    generator.initialize(256);
+    userKey = generator.generateKeyPair();
+    hostKey = generator.generateKeyPair();
+    otherKey = generator.generateKeyPair();
+  }
+
   @Test
-  void testCreateWithProvidedKnownHosts(@TempDir Path tempDir) throws IOException {
-    // Test data
-    byte[] privateKey = "-----BEGIN OPENSSH TEST KEY-----\ntest-key\n-----END OPENSSH TEST KEY-----\n"
-        .getBytes(StandardCharsets.UTF_8);
-    byte[] knownHosts = "github.com ssh-ed25519 AAAAC3NzaC1lZDI1NTE5AAAAIOMqqnkVzrm0SdG6UOoqKLsabgH5C9okWi0dh2l9GKJl\n"
+  void testCreateWithProvidedKnownHosts() throws Exception {
+    byte[] knownHosts = ("github.com " + PublicKeyEntry.toString(hostKey.getPublic()) + "\n")
         .getBytes(StandardCharsets.UTF_8);
 
-    // Create session factory
-    SshdSessionFactory factory = TaskTallySshdSessionFactory.create(privateKey, knownHosts, null, tempDir.toFile());
+    SshdSessionFactory factory = TaskTallySshdSessionFactory.create(privateKey(userKey, null), knownHosts, null);
 
-    // Verify factory is created
     assertNotNull(factory);
-
-    // Verify private key file exists and has correct permissions
-    Path keyFile = tempDir.resolve("id_rsa");
-    assertTrue(Files.exists(keyFile), "Private key file should exist");
-    assertTrue(keyFile.toFile().canRead(), "Private key file should be readable");
-    assertTrue(keyFile.toFile().canWrite(), "Private key file should be writable by owner");
-
-    // Verify known_hosts file exists and contains provided host key
-    Path knownHostsFile = tempDir.resolve("known_hosts");
-    assertTrue(Files.exists(knownHostsFile), "Known hosts file should exist");
-    String knownHostsContent = Files.readString(knownHostsFile);
-    assertTrue(knownHostsContent.contains("github.com ssh-ed25519"), "Known hosts should contain provided host key");
-
-    // Verify config file exists
-    Path configFile = tempDir.resolve("config");
-    assertTrue(Files.exists(configFile), "SSH config file should exist");
-    String configContent = Files.readString(configFile);
-    assertTrue(configContent.contains("Host github.com"), "Config should contain GitHub host configuration");
-    assertTrue(configContent.contains("StrictHostKeyChecking yes"), "Config should enable strict host key checking");
+    factory.close();
   }
 
   @Test
-  void testCreateWithEmptyKnownHosts(@TempDir Path tempDir) throws IOException {
-    // Test data
-    byte[] privateKey = "-----BEGIN OPENSSH TEST KEY-----\ntest-key\n-----END OPENSSH TEST KEY-----\n"
-        .getBytes(StandardCharsets.UTF_8);
+  void testDecodesEncryptedKey() throws Exception {
+    byte[] encrypted = privateKey(userKey, "secret");
 
-    // Create session factory with empty known_hosts (should read from local file)
-    SshdSessionFactory factory = TaskTallySshdSessionFactory.create(privateKey, new byte[0], null, tempDir.toFile());
+    KeyPair decoded = TaskTallySshdSessionFactory.parseIdentities(encrypted, "secret".toCharArray()).iterator().next();
 
-    // Verify factory is created
-    assertNotNull(factory);
+    assertEquals(userKey.getPublic(), decoded.getPublic());
+    assertThrows(IOException.class, () -> TaskTallySshdSessionFactory.parseIdentities(encrypted, "wrong"
+        .toCharArray()).iterator().next());
+  }
+
+  @Test
+  void testDecodesEd25519AndEcdsaKeys() throws Exception {
+    for (String type : new String[] { "ssh-ed25519", "ecdsa-sha2-nistp256" }) {
+      KeyPair key = KeyUtils.generateKeyPair(type, 256);
 
-    // Verify known_hosts file exists and contains some host keys
-    Path knownHostsFile = tempDir.resolve("known_hosts");
-    assertTrue(Files.exists(knownHostsFile), "Known hosts file should exist");
-    String knownHostsContent = Files.readString(knownHostsFile);
-    assertTrue(knownHostsContent.contains("github.com"), "Known hosts should contain GitHub host keys");
+      KeyPair decoded = TaskTallySshdSessionFactory.parseIdentities(privateKey(key, "secret"), "secret"
+          .toCharArray()).get(0);
+
+      assertTrue(KeyUtils.compareKeys(key.getPublic(), decoded.getPublic()), type);
+      assertTrue(knownHosts("github.com " + line(key.getPublic())).accept("github.com", null, key.getPublic(), null,
+          null), type);
+    }
   }
 
   @Test
-  void testCreateWithNullKnownHosts(@TempDir Path tempDir) throws IOException {
-    // Test data
+  void testRejectsInvalidKey() {
     byte[] privateKey = "-----BEGIN OPENSSH TEST KEY-----\ntest-key\n-----END OPENSSH TEST KEY-----\n"
         .getBytes(StandardCharsets.UTF_8);
 
-    // Create session factory with null known_hosts (should read from local file)
-    SshdSessionFactory factory = TaskTallySshdSessionFactory.create(privateKey, null, null, tempDir.toFile());
+    assertThrows(IOException.class, () -> TaskTallySshdSessionFactory.parseIdentities(privateKey, null));
+  }
 
-    // Verify factory is created
-    assertNotNull(factory);
+  @Test
+  void testKnownHostsAcceptOnlyListedKeys() throws Exception {
+    TaskTallySshdSessionFactory.KnownHosts hosts = knownHosts("github.com " + line(hostKey.getPublic()),
+        "[git.example.com]:2222 " + line(otherKey.getPublic()));
+
+    assertEquals(2, hosts.size());
+    assertTrue(hosts.accept("github.com", null, hostKey.getPublic(), null, null));
+    assertFalse(hosts.accept("github.com", null, otherKey.getPublic(), null, null));
+    assertFalse(hosts.accept("gitlab.com", null, hostKey.getPublic(), null, null));
+    assertTrue(hosts.accept("[git.example.com]:2222", null, otherKey.getPublic(), null, null));
+    assertFalse(hosts.accept("git.example.com", null, otherKey.getPublic(), null, null));
+    assertEquals(1, hosts.lookup("github.com", null, null).size());
+  }
+
+  @Test
+  void testKnownHostsRejectRevokedKeys() throws Exception {
+    TaskTallySshdSessionFactory.KnownHosts hosts = knownHosts("github.com " + line(hostKey.getPublic()),
+        "@revoked * " + line(hostKey.getPublic()));
+
+    assertFalse(hosts.accept("github.com", null, hostKey.getPublic(), null, null));
+    assertEquals(1, hosts.lookup("github.com", null, null).size());
+  }
+
+  @Test
+  void testCreateWithNullKnownHosts() throws IOException {
+    // Falls back to the local known_hosts file
+    SshdSessionFactory factory = TaskTallySshdSessionFactory.create(privateKey(userKey, null), null, null);
 
-    // Verify known_hosts file exists and contains some host keys
-    Path knownHostsFile = tempDir.resolve("known_hosts");
-    assertTrue(Files.exists(knownHostsFile), "Known hosts file should exist");
-    String knownHostsContent = Files.readString(knownHostsFile);
-    assertTrue(knownHostsContent.contains("github.com"), "Known hosts should contain GitHub host keys");
+    assertNotNull(factory);
+    factory.close();
   }
 
   @Test
@@ -102,4 +126,32 @@ public class TaskTallySshdSessionFactoryTest {
           "Environment variable path should be absolute or contain path separators");
     }
   }
+
+  private static TaskTallySshdSessionFactory.KnownHosts knownHosts(String... lines) throws IOException {
+    return TaskTallySshdSessionFactory.parseKnownHosts((String.join("\n", lines) + "\n")
+        .getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String line(PublicKey key) {
+    return PublicKeyEntry.toString(key);
+  }
+
+  private static byte[] privateKey(KeyPair keyPair, String passphrase) {
+    try {
+      OpenSSHKeyEncryptionContext encryption = null;
+      if (passphrase != null) {
+        encryption = new OpenSSHKeyEncryptionContext();
+        encryption.setCipherName("AES");
+        encryption.setCipherMode("CTR");
+        encryption.setCipherType("256");
+        encryption.setKdfRounds(4);
+        encryption.setPassword(passphrase);
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      OpenSSHKeyPairResourceWriter.INSTANCE.writePrivateKey(keyPair, "test", encryption, out);
+      return out.toByteArray();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
 }
@@ -0,0 +1,66 @@
+package io.redhat.na.ssp.tasktally.github.ssh;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class WorkspaceManagerTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void closingWorkspaceDeletesDirectoryAndFreesSlot() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    WorkspaceManager manager = manager(1, registry);
+
+    Path dir;
+    try (WorkspaceManager.Workspace workspace = manager.acquire("git-validate")) {
+      dir = workspace.path();
+      Files.writeString(dir.resolve("file"), "12345");
+      assertEquals(1, manager.active());
+      assertEquals(0.0, registry.get("git.workspace.disk.usage").gauge().value());
+      manager.measureDiskUsage();
+      assertEquals(5.0, registry.get("git.workspace.disk.usage").gauge().value());
+      assertThrows(IOException.class, () -> manager.acquire("git-validate"));
+    }
+
+    assertFalse(Files.exists(dir));
+    assertEquals(0, manager.active());
+    manager.acquire("git-validate").close();
+  }
+
+  @Test
+  void sweepRemovesLeftoversFromEarlierRuns() throws Exception {
+    WorkspaceManager manager = manager(1, new SimpleMeterRegistry());
+    Path stale = Files.createDirectories(tempDir.resolve("git-validate123"));
+    Files.writeString(stale.resolve("file"), "x");
+    Files.setLastModifiedTime(stale, FileTime.fromMillis(1000));
+
+    try (WorkspaceManager.Workspace current = manager.acquire("tmpl-repo")) {
+      assertEquals(1, manager.sweep(2000));
+      assertFalse(Files.exists(stale));
+      assertTrue(Files.exists(current.path()));
+    }
+  }
+
+  private WorkspaceManager manager(int maxActive, SimpleMeterRegistry registry) {
+    WorkspaceManager manager = new WorkspaceManager(Optional.of(tempDir.toString()), maxActive, Duration.ofMillis(50),
+        Duration.ofMinutes(1), registry);
+    manager.registerMetrics();
+    return manager;
+  }
+}
@@ -0,0 +1,70 @@
+package io.redhat.na.ssp.tasktally.repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.redhat.na.ssp.tasktally.PostgresTestResource;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.ProjectedOutcome;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.model.UserPreferences;
+import io.redhat.na.ssp.tasktally.service.OutcomeQuery;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+@QuarkusTest
+@QuarkusTestResource(PostgresTestResource.class)
+public class ProjectedOutcomeRepositoryTest {
+
+  private static final List<String> PREFIXES = List.of("b", "B", "a", "A", "_", "Z");
+
+  @Inject
+  ProjectedOutcomeRepository repo;
+  @Inject
+  TemplateRepository templateRepo;
+  @Inject
+  UserPreferencesRepository userRepo;
+
+  @Test
+  @Transactional
+  public void sortsMixedCaseKeysLikeTheInMemoryQuery() {
+    UserPreferences up = new UserPreferences();
+    up.userId = "collation-user";
+    userRepo.persist(up);
+    Template t = new Template();
+    t.userPreferences = up;
+    t.name = "T";
+    t.repositoryUrl = "git@example.com:collation.git";
+    templateRepo.persist(t);
+    List<Outcome> outcomes = PREFIXES.stream().map(p -> new Outcome("Plan", "Dev", "RHEL", "Prod", p, "x", null))
+        .toList();
+    for (int i = 0; i < PREFIXES.size(); i++) {
+      ProjectedOutcome row = new ProjectedOutcome();
+      row.templateId = t.id;
+      row.position = i;
+      row.prefix = PREFIXES.get(i);
+      repo.persist(row);
+    }
+    repo.flush();
+
+    OutcomeQuery query = OutcomeQuery.of(null, null, null, null, "prefix", 100, null);
+    List<Integer> expected = query.apply(outcomes).entries().stream().map(OutcomeQuery.Entry::position).toList();
+    List<Integer> ascending = positions(repo.findPage(t.id, Map.of(), "prefix", false, null, null, 100));
+    // Continuing after "B" must return exactly the rows the in-memory order puts after it
+    List<Integer> afterB = positions(repo.findPage(t.id, Map.of(), "prefix", false, 1, "B", 100));
+
+    assertEquals(List.of(3, 1, 5, 4, 2, 0), expected);
+    assertEquals(expected, ascending);
+    assertEquals(expected.subList(2, expected.size()), afterB);
+  }
+
+  private static List<Integer> positions(List<ProjectedOutcome> rows) {
+    return rows.stream().map(r -> r.position).toList();
+  }
+}
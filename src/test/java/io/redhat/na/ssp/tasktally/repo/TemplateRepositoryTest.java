@@ -7,6 +7,7 @@ import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -34,4 +35,27 @@ public class TemplateRepositoryTest {
     List<Template> list = repo.listByUser(up.id);
     assertEquals(1, list.size());
   }
+
+  @Test
+  @Transactional
+  public void testFindAccessOnlyForOwner() {
+    UserPreferences owner = new UserPreferences();
+    owner.userId = "access-owner";
+    userRepo.persist(owner);
+    UserPreferences other = new UserPreferences();
+    other.userId = "access-other";
+    userRepo.persist(other);
+
+    Template t = new Template();
+    t.userPreferences = owner;
+    t.name = "Owned";
+    t.repositoryUrl = "git@example.com:owned.git";
+    repo.persist(t);
+
+    Optional<TemplateAccess> access = repo.findAccess("access-owner", t.id);
+    assertTrue(access.isPresent());
+    assertEquals(t.id, access.get().template().id);
+    assertEquals(owner.id, access.get().userPreferencesId());
+    assertTrue(repo.findAccess("access-other", t.id).isEmpty());
+  }
 }
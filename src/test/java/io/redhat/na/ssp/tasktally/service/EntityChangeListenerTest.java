@@ -0,0 +1,89 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.redhat.na.ssp.tasktally.github.ssh.KeyPairCache;
+import io.redhat.na.ssp.tasktally.github.ssh.SshSessionFactoryPool;
+import io.redhat.na.ssp.tasktally.model.CredentialRef;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.model.UserPreferences;
+
+class EntityChangeListenerTest {
+
+  private EntityChangeListener listener;
+  private Cache cache;
+
+  @BeforeEach
+  void setUp() {
+    cache = mock(Cache.class);
+    listener = new EntityChangeListener();
+    listener.sessionFactory = mock(SessionFactory.class);
+    when(listener.sessionFactory.getCache()).thenReturn(cache);
+    listener.gitYamlService = mock(GitYamlService.class);
+    listener.sshSessions = mock(SshSessionFactoryPool.class);
+    listener.keyPairs = mock(KeyPairCache.class);
+    listener.mapper = new ObjectMapper();
+  }
+
+  @Test
+  void templateChangeEvictsEntityQueriesAndOutcomes() {
+    listener.handle("{\"table\":\"templates\",\"op\":\"UPDATE\",\"id\":7,"
+        + "\"repository_url\":\"git@example.com:org/repo.git\"}");
+
+    verify(cache).evict(Template.class, 7L);
+    verify(cache).evictDefaultQueryRegion();
+    verify(listener.gitYamlService).invalidate("git@example.com:org/repo.git");
+  }
+
+  @Test
+  void credentialChangeDropsPooledSession() {
+    listener.handle("{\"table\":\"credential_refs\",\"op\":\"DELETE\",\"id\":3}");
+
+    verify(cache).evict(CredentialRef.class, 3L);
+    verify(listener.sshSessions).invalidate(argThat(ref -> ref.id == 3L));
+    verify(listener.keyPairs).invalidate(argThat(ref -> ref.id == 3L));
+    verify(cache).evictDefaultQueryRegion();
+  }
+
+  @Test
+  void userPreferencesChangeEvictsEntity() {
+    listener.handle("{\"table\":\"user_preferences\",\"op\":\"INSERT\",\"id\":1}");
+
+    verify(cache).evict(UserPreferences.class, 1L);
+    verify(cache).evictDefaultQueryRegion();
+  }
+
+  @Test
+  void reconnectEvictsEverything() {
+    listener.evictAll();
+
+    verify(cache).evict(Template.class);
+    verify(cache).evict(CredentialRef.class);
+    verify(cache).evict(UserPreferences.class);
+    verify(cache).evictDefaultQueryRegion();
+    verify(listener.gitYamlService).clear();
+    verify(listener.sshSessions).clear();
+    verify(listener.keyPairs).clear();
+  }
+
+  @Test
+  void ignoresUnknownAndMalformedNotifications() {
+    listener.handle("{\"table\":\"outcome_outbox\",\"op\":\"INSERT\",\"id\":1}");
+    listener.handle("not json");
+
+    verify(cache, never()).evictDefaultQueryRegion();
+    verify(listener.gitYamlService, never()).invalidate(any());
+  }
+}
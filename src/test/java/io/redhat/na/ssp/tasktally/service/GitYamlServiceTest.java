@@ -0,0 +1,164 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.redhat.na.ssp.tasktally.github.ssh.GitBlob;
+import io.redhat.na.ssp.tasktally.github.ssh.SshGitService;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.Template;
+
+@ExtendWith(MockitoExtension.class)
+class GitYamlServiceTest {
+
+  private static final String URI = "git@example.com:org/repo.git";
+  private static final String YAML = """
+      outcomes:
+      - outcome:
+          phase:
+            name: Plan
+            track: Dev
+            product: Prod
+            environment: Env
+          prefix: P
+          description: Desc
+          notes: Notes
+      """;
+
+  @Mock
+  private SshGitService sshGitService;
+
+  @Mock
+  private OutcomeProjection projection;
+
+  @InjectMocks
+  private GitYamlService gitYamlService;
+
+  private Template template;
+  private OutcomeCache outcomeCache;
+
+  @BeforeEach
+  void setUp() {
+    template = new Template();
+    template.id = 7L;
+    template.repositoryUrl = URI;
+    template.defaultBranch = "main";
+    template.yamlPath = "outcomes.yml";
+    outcomeCache = new OutcomeCache(100, 1 << 20, new SimpleMeterRegistry());
+    gitYamlService.outcomeCache = outcomeCache;
+  }
+
+  @Test
+  void skipsReadWhenRemoteTipUnchanged() throws Exception {
+    when(sshGitService.remoteTip(URI, "main", null)).thenReturn("c1");
+    when(sshGitService.readFile(URI, "main", "outcomes.yml", null)).thenReturn(blob("c1"));
+
+    List<Outcome> first = gitYamlService.readOutcomes(template, null);
+    first.get(0).notes = "changed by caller";
+    List<Outcome> second = gitYamlService.readOutcomes(template, null);
+
+    verify(sshGitService, times(1)).readFile(any(), any(), any(), any());
+    assertEquals(1, second.size());
+    assertEquals("Notes", second.get(0).notes);
+    assertNotSame(first.get(0), second.get(0));
+  }
+
+  @Test
+  void rereadsWhenRemoteTipMoved() throws Exception {
+    when(sshGitService.remoteTip(URI, "main", null)).thenReturn("c1", "c2");
+    when(sshGitService.readFile(URI, "main", "outcomes.yml", null)).thenReturn(blob("c1"), blob("c2"));
+
+    gitYamlService.readOutcomes(template, null);
+    gitYamlService.readOutcomes(template, null);
+
+    verify(sshGitService, times(2)).readFile(any(), any(), any(), any());
+  }
+
+  @Test
+  void reusesParsedBlobWhenOtherFilesChanged() throws Exception {
+    when(sshGitService.remoteTip(URI, "main", null)).thenReturn("c1", "c2");
+    when(sshGitService.readFile(URI, "main", "outcomes.yml", null)).thenReturn(blob("c1", "b1"), blob("c2", "b1"));
+
+    gitYamlService.readOutcomes(template, null);
+    List<Outcome> outcomes = gitYamlService.readOutcomes(template, null);
+
+    assertEquals(1, outcomes.size());
+    assertEquals(1, outcomeCache.stats().hits());
+    assertEquals(1, outcomeCache.stats().size());
+  }
+
+  @Test
+  void writeRecordsPushedCommit() throws Exception {
+    Outcome outcome = new Outcome("Plan", "Dev", "Prod", "Env", "P", "Written", "Notes");
+    when(sshGitService.commitFile(any(), any(), any(), any(), any(), any(), any(), any(), any())).thenReturn("c3");
+    when(sshGitService.remoteTip(URI, "main", null)).thenReturn("c3");
+
+    gitYamlService.writeOutcomes(template, List.of(outcome), null);
+    List<Outcome> outcomes = gitYamlService.readOutcomes(template, null);
+
+    verify(sshGitService, times(0)).readFile(any(), any(), any(), any());
+    assertEquals("Written", outcomes.get(0).description);
+  }
+
+  @Test
+  void servesProjectionWhenItMatchesRemoteTip() throws Exception {
+    when(sshGitService.remoteTip(URI, "main", null)).thenReturn("c1");
+    when(projection.read(7L, "c1")).thenReturn(Optional.of(List.of(new Outcome("Plan", "Dev", "Prod", "Env", "P",
+        "Projected", "Notes"))));
+
+    List<Outcome> outcomes = gitYamlService.readOutcomes(template, null);
+
+    verify(sshGitService, never()).readFile(any(), any(), any(), any());
+    assertEquals("Projected", outcomes.get(0).description);
+  }
+
+  @Test
+  void refreshesProjectionAfterReadingGit() throws Exception {
+    when(sshGitService.remoteTip(URI, "main", null)).thenReturn("c2");
+    when(projection.read(7L, "c2")).thenReturn(Optional.empty());
+    when(sshGitService.readFile(URI, "main", "outcomes.yml", null)).thenReturn(blob("c2", "b2"));
+
+    gitYamlService.readOutcomes(template, null);
+
+    verify(projection).refresh(eq(7L), eq("c2"), eq("b2"), anyList(), anyList());
+  }
+
+  @Test
+  void projectionFailureDoesNotFailRead() throws Exception {
+    when(sshGitService.remoteTip(URI, "main", null)).thenReturn("c1");
+    when(projection.read(7L, "c1")).thenThrow(new IllegalStateException("database down"));
+    when(sshGitService.readFile(URI, "main", "outcomes.yml", null)).thenReturn(blob("c1"));
+    doThrow(new IllegalStateException("database down")).when(projection)
+        .refresh(any(), any(), any(), any(), any());
+
+    assertEquals(1, gitYamlService.readOutcomes(template, null).size());
+  }
+
+  private static GitBlob blob(String commitId) {
+    return blob(commitId, "b-" + commitId);
+  }
+
+  private static GitBlob blob(String commitId, String blobId) {
+    return new GitBlob(commitId, blobId, YAML.getBytes(StandardCharsets.UTF_8));
+  }
+}
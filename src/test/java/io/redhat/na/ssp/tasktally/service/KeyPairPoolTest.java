@@ -0,0 +1,77 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.Map;
+
+import org.apache.sshd.common.config.keys.KeyUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.redhat.na.ssp.tasktally.service.KeyPairPool.Algorithm;
+
+class KeyPairPoolTest {
+
+  private SimpleMeterRegistry registry;
+  private KeyPairPool pool;
+
+  @BeforeEach
+  void setUp() {
+    registry = new SimpleMeterRegistry();
+    // Disabled, so pairs are only generated by explicit refills
+    pool = new KeyPairPool(registry, false, Duration.ofSeconds(5), Map.of(Algorithm.RSA, 2));
+  }
+
+  @AfterEach
+  void tearDown() {
+    pool.close();
+  }
+
+  @Test
+  void takesPooledPairsUntilEmptyThenGeneratesInline() throws Exception {
+    pool.refill();
+    assertEquals(2, pool.depth(Algorithm.RSA));
+    assertEquals(2.0, registry.get("ssh.keygen.pool.depth").tag("algorithm", "rsa").gauge().value());
+    assertEquals(2.0, registry.get("ssh.keygen.pool.generated").tag("algorithm", "rsa").counter().count());
+
+    KeyPair first = pool.take(Algorithm.RSA);
+    KeyPair second = pool.take(Algorithm.RSA);
+    KeyPair third = pool.take(Algorithm.RSA);
+
+    assertNotEquals(first.getPublic(), second.getPublic());
+    assertEquals("RSA", third.getPublic().getAlgorithm());
+    assertEquals(0, pool.depth(Algorithm.RSA));
+    assertEquals(2.0, takes("pooled"));
+    assertEquals(1.0, takes("inline"));
+  }
+
+  @Test
+  void refillStopsAtConfiguredSize() {
+    pool.refill();
+    pool.refill();
+
+    assertEquals(2, pool.depth(Algorithm.RSA));
+    assertEquals(2.0, registry.get("ssh.keygen.pool.generated").tag("algorithm", "rsa").counter().count());
+  }
+
+  @Test
+  void generatesEveryAlgorithm() throws Exception {
+    assertEquals(Algorithm.RSA, Algorithm.of(null));
+    assertEquals(Algorithm.ED25519, Algorithm.of("Ed25519"));
+    assertEquals(Algorithm.ECDSA_P256, Algorithm.of("ecdsa-sha2-nistp256"));
+    assertThrows(IllegalArgumentException.class, () -> Algorithm.of("dsa"));
+
+    assertEquals("ssh-ed25519", KeyUtils.getKeyType(pool.take(Algorithm.ED25519).getPublic()));
+    assertEquals("ecdsa-sha2-nistp256", KeyUtils.getKeyType(pool.take(Algorithm.ECDSA_P256).getPublic()));
+  }
+
+  private double takes(String result) {
+    return registry.get("ssh.keygen.pool.takes").tag("algorithm", "rsa").tag("result", result).counter().count();
+  }
+}
@@ -0,0 +1,102 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+
+class OutcomeCacheTest {
+
+  @Test
+  void tracksHitsAndMisses() {
+    OutcomeCache cache = new OutcomeCache(10, 1000, new SimpleMeterRegistry());
+    OutcomeCache.Key key = key("b1");
+
+    assertNull(cache.get(key));
+    cache.put(key, outcomes(), 10);
+    assertNotNull(cache.get(key));
+
+    OutcomeCache.Stats stats = cache.stats();
+    assertEquals(1, stats.hits());
+    assertEquals(1, stats.misses());
+    assertEquals(10, stats.weight());
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedBySizeAndWeight() {
+    OutcomeCache cache = new OutcomeCache(2, 100, new SimpleMeterRegistry());
+    cache.put(key("b1"), outcomes(), 10);
+    cache.put(key("b2"), outcomes(), 10);
+    cache.get(key("b1"));
+    cache.put(key("b3"), outcomes(), 10);
+
+    assertNotNull(cache.get(key("b1")));
+    assertNull(cache.get(key("b2")));
+
+    cache.put(key("b4"), outcomes(), 95);
+    assertEquals(1, cache.stats().size());
+    assertEquals(3, cache.stats().evictions());
+
+    cache.put(key("b5"), outcomes(), 101);
+    assertNull(cache.get(key("b5")));
+  }
+
+  @Test
+  void cachedListsAreImmutable() {
+    OutcomeCache cache = new OutcomeCache(10, 1000, new SimpleMeterRegistry());
+    List<Outcome> source = outcomes();
+    cache.put(key("b1"), source, 10);
+    source.clear();
+
+    List<Outcome> cached = cache.get(key("b1"));
+    assertEquals(1, cached.size());
+    assertThrows(UnsupportedOperationException.class, () -> cached.add(new Outcome()));
+  }
+
+  @Test
+  void invalidatesByRepository() {
+    OutcomeCache cache = new OutcomeCache(10, 1000, new SimpleMeterRegistry());
+    cache.put(key("b1"), outcomes(), 10);
+    cache.put(new OutcomeCache.Key("other", "main", "outcomes.yml", "b1"), outcomes(), 10);
+
+    cache.invalidate("repo");
+    assertEquals(1, cache.stats().size());
+    assertEquals(10, cache.stats().weight());
+  }
+  @Test
+  void tipsAreBoundedAndInvalidatedByRepository() {
+    OutcomeCache cache = new OutcomeCache(2, 1000, new SimpleMeterRegistry());
+    OutcomeCache.Source first = new OutcomeCache.Source("repo", "main", "outcomes.yml");
+    OutcomeCache.Source second = new OutcomeCache.Source("repo", "develop", "outcomes.yml");
+    OutcomeCache.Source other = new OutcomeCache.Source("other", "main", "outcomes.yml");
+    cache.putTip(first, new OutcomeCache.Tip("c1", "b1"));
+    cache.putTip(second, new OutcomeCache.Tip("c2", null));
+    cache.tip(first);
+    cache.putTip(other, new OutcomeCache.Tip("c3", "b3"));
+
+    assertEquals(new OutcomeCache.Tip("c1", "b1"), cache.tip(first));
+    assertNull(cache.tip(second));
+
+    cache.invalidate("repo");
+    assertNull(cache.tip(first));
+    assertNotNull(cache.tip(other));
+  }
+
+  private static OutcomeCache.Key key(String blobSha) {
+    return new OutcomeCache.Key("repo", "main", "outcomes.yml", blobSha);
+  }
+
+  private static List<Outcome> outcomes() {
+    List<Outcome> outcomes = new ArrayList<>();
+    outcomes.add(new Outcome("Plan", "Dev", "Prod", "Env", "P", "Desc", "Notes"));
+    return outcomes;
+  }
+}
@@ -0,0 +1,216 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.redhat.na.ssp.tasktally.github.ssh.PushRejectedException;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.Template;
+import jakarta.ws.rs.NotFoundException;
+import jakarta.ws.rs.WebApplicationException;
+
+class OutcomeCommitBatcherTest {
+
+  private GitYamlService gitYamlService;
+  private OutcomeCommitBatcher batcher;
+  private Template template;
+
+  @BeforeEach
+  void setUp() {
+    gitYamlService = mock(GitYamlService.class);
+    batcher = new OutcomeCommitBatcher(gitYamlService, new RepositoryWriteLocks(new SimpleMeterRegistry()),
+        Duration.ofMillis(200), 2, 3, Duration.ofMillis(1), Duration.ofSeconds(10));
+    template = new Template();
+    template.id = 1L;
+    template.repositoryUrl = "git@example.com:org/repo.git";
+  }
+
+  @AfterEach
+  void tearDown() {
+    batcher.close();
+  }
+
+  @Test
+  void coalescesConcurrentChangesIntoOneWrite() throws Exception {
+    Outcome existing = outcome("existing");
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1", existing));
+    Outcome added = outcome("added");
+    Outcome replaced = outcome("replaced");
+
+    CompletableFuture<Outcome> add = submitAsync(new OutcomeChange.Add(added));
+    CompletableFuture<Outcome> replace = submitAsync(new OutcomeChange.Replace(0, replaced));
+    CompletableFuture<Outcome> missing = submitAsync(new OutcomeChange.Remove(7));
+
+    assertSame(added, add.join());
+    assertSame(replaced, replace.join());
+    assertThrows(NotFoundException.class, () -> unwrap(missing));
+
+    ArgumentCaptor<List<Outcome>> written = ArgumentCaptor.captor();
+    verify(gitYamlService, times(1)).readSnapshot(template, null);
+    verify(gitYamlService, times(1)).writeOutcomes(any(), written.capture(), eq("c1"), any(), anyList());
+    assertEquals(2, written.getValue().size());
+    assertSame(replaced, written.getValue().get(0));
+    assertSame(added, written.getValue().get(1));
+  }
+
+  @Test
+  void failedWriteFailsEveryAppliedChange() throws Exception {
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1"));
+    doThrow(new RuntimeException("push failed")).when(gitYamlService)
+        .writeOutcomes(any(), anyList(), any(), any(), anyList());
+
+    CompletableFuture<Outcome> first = submitAsync(new OutcomeChange.Add(outcome("a")));
+    CompletableFuture<Outcome> second = submitAsync(new OutcomeChange.Add(outcome("b")));
+
+    assertEquals("push failed", assertThrows(RuntimeException.class, () -> unwrap(first)).getMessage());
+    assertEquals("push failed", assertThrows(RuntimeException.class, () -> unwrap(second)).getMessage());
+  }
+
+  @Test
+  void mergesOntoNewTipWhenPushIsRejected() throws Exception {
+    Outcome a = outcome("a");
+    Outcome b = outcome("b");
+    Outcome theirs = outcome("theirs");
+    Outcome ours = outcome("ours");
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1", a, b), snapshot("c2", a, b, theirs));
+    when(gitYamlService.writeOutcomes(any(), anyList(), eq("c1"), any(), anyList()))
+        .thenThrow(new PushRejectedException("moved"));
+
+    assertSame(ours, batcher.submit(template, null, new OutcomeChange.Replace(0, ours)));
+
+    ArgumentCaptor<List<Outcome>> written = ArgumentCaptor.captor();
+    verify(gitYamlService).writeOutcomes(any(), written.capture(), eq("c2"), any(), anyList());
+    assertEquals(List.of(ours, b, theirs), written.getValue());
+  }
+
+  @Test
+  void reportsConflictWhenSameOutcomeChangedOnBothSides() throws Exception {
+    Outcome a = outcome("a");
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1", a),
+        snapshot("c2", outcome("theirs")));
+    when(gitYamlService.writeOutcomes(any(), anyList(), eq("c1"), any(), anyList()))
+        .thenThrow(new PushRejectedException("moved"));
+
+    assertThrows(OutcomeConflictException.class,
+        () -> batcher.submit(template, null, new OutcomeChange.Replace(0, outcome("ours"))));
+    verify(gitYamlService, times(1)).writeOutcomes(any(), anyList(), any(), any(), anyList());
+  }
+
+  @Test
+  void givesUpAfterMaxAttempts() throws Exception {
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1"));
+    when(gitYamlService.writeOutcomes(any(), anyList(), any(), any(), anyList()))
+        .thenThrow(new PushRejectedException("moved"));
+
+    assertThrows(IllegalStateException.class,
+        () -> batcher.submit(template, null, new OutcomeChange.Add(outcome("a"))));
+    verify(gitYamlService, times(3)).writeOutcomes(any(), anyList(), any(), any(), anyList());
+  }
+
+  @Test
+  void failedChangeStopsTheRestOfItsRun() throws Exception {
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1", outcome("a")));
+    OutcomeChange.Add failing = mock(OutcomeChange.Add.class);
+    when(failing.apply(anyList())).thenThrow(new IllegalArgumentException("bad outcome"));
+
+    List<CompletableFuture<Outcome>> results = batcher.submitAll(template, null, List.of(
+        new OutcomeChange.Add(outcome("b")), failing, new OutcomeChange.Remove(0)));
+
+    assertEquals("b", results.get(0).join().description);
+    assertEquals("bad outcome", assertThrows(IllegalArgumentException.class, () -> unwrap(results.get(1)))
+        .getMessage());
+    assertThrows(IllegalStateException.class, () -> unwrap(results.get(2)));
+    ArgumentCaptor<List<Outcome>> written = ArgumentCaptor.captor();
+    verify(gitYamlService).writeOutcomes(any(), written.capture(), eq("c1"), any(), anyList());
+    assertEquals(2, written.getValue().size());
+  }
+
+  @Test
+  void pushesCarryTheOutboxEntriesTheyDeliver() throws Exception {
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1", outcome("a")));
+
+    List<CompletableFuture<Outcome>> results = batcher.submitAll(template, null, List.of(
+        new OutcomeChange.Add(outcome("b")), new OutcomeChange.Remove(7), new OutcomeChange.Remove(0)),
+        List.of(10L, 11L, 12L));
+
+    results.get(0).join();
+    assertThrows(NotFoundException.class, () -> unwrap(results.get(1)));
+    results.get(2).join();
+    verify(gitYamlService).writeOutcomes(any(), anyList(), eq("c1"), any(), eq(List.of(10L, 12L)));
+  }
+
+  @Test
+  void drainedSlotsAreRemoved() throws Exception {
+    when(gitYamlService.readSnapshot(template, null)).thenReturn(snapshot("c1"));
+
+    CompletableFuture<Outcome> first = submitAsync(new OutcomeChange.Add(outcome("a")));
+    first.join();
+    assertEquals(0, batcher.openSlots());
+
+    batcher.submit(template, null, new OutcomeChange.Add(outcome("b")));
+    assertEquals(0, batcher.openSlots());
+    verify(gitYamlService, times(2)).writeOutcomes(any(), anyList(), any(), any(), anyList());
+  }
+
+  @Test
+  void waitingForAStuckPushTimesOut() throws Exception {
+    batcher.close();
+    batcher = new OutcomeCommitBatcher(gitYamlService, new RepositoryWriteLocks(new SimpleMeterRegistry()),
+        Duration.ofMillis(1), 1, 3, Duration.ofMillis(1), Duration.ofMillis(100));
+    CountDownLatch release = new CountDownLatch(1);
+    when(gitYamlService.readSnapshot(template, null)).thenAnswer(invocation -> {
+      release.await();
+      return snapshot("c1");
+    });
+
+    try {
+      WebApplicationException e = assertThrows(WebApplicationException.class,
+          () -> batcher.submit(template, null, new OutcomeChange.Add(outcome("a"))));
+      assertEquals(504, e.getResponse().getStatus());
+    } finally {
+      release.countDown();
+    }
+  }
+
+  private CompletableFuture<Outcome> submitAsync(OutcomeChange change) {
+    return CompletableFuture.supplyAsync(() -> batcher.submit(template, null, change));
+  }
+
+  private static Outcome unwrap(CompletableFuture<Outcome> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      throw (RuntimeException) e.getCause();
+    }
+  }
+
+  private static OutcomeSnapshot snapshot(String commitId, Outcome... outcomes) {
+    return new OutcomeSnapshot(commitId, new ArrayList<>(List.of(outcomes)));
+  }
+
+  private static Outcome outcome(String description) {
+    return new Outcome("Plan", "Dev", "Prod", "Env", "P", description, "Notes");
+  }
+}
@@ -0,0 +1,66 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+
+class OutcomeMergerTest {
+
+  private final Outcome a = outcome("a");
+  private final Outcome b = outcome("b");
+  private final Outcome c = outcome("c");
+
+  @Test
+  void keepsConcurrentAppendsFromBothSides() {
+    Outcome theirs = outcome("theirs");
+    Outcome ours = outcome("ours");
+    assertEquals(List.of(a, b, theirs, ours), OutcomeMerger.merge(List.of(a, b), List.of(a, b, ours),
+        List.of(a, b, theirs)));
+  }
+
+  @Test
+  void combinesEditsToDifferentOutcomes() {
+    Outcome ours = outcome("a2");
+    List<Outcome> merged = OutcomeMerger.merge(List.of(a, b, c), List.of(ours, b, c), List.of(a, b));
+    assertEquals(List.of(ours, b), merged);
+  }
+
+  @Test
+  void acceptsIdenticalChangesOnBothSides() {
+    List<Outcome> merged = OutcomeMerger.merge(List.of(a, b), List.of(a, outcome("b2")), List.of(a, outcome("b2")));
+    assertEquals(2, merged.size());
+    assertEquals("b2", merged.get(1).description);
+  }
+
+  @Test
+  void ignoresTimestampsWhenMatching() {
+    Outcome reloaded = a.copy();
+    reloaded.updatedAt = reloaded.updatedAt.plusSeconds(60);
+    Outcome ours = outcome("ours");
+    List<Outcome> merged = OutcomeMerger.merge(List.of(a), List.of(a, ours), List.of(reloaded));
+    assertEquals(2, merged.size());
+    assertEquals("a", merged.get(0).description);
+    assertEquals(ours, merged.get(1));
+  }
+
+  @Test
+  void conflictsWhenSameOutcomeChangedDifferently() {
+    assertThrows(OutcomeConflictException.class,
+        () -> OutcomeMerger.merge(List.of(a, b), List.of(outcome("a1"), b), List.of(outcome("a2"), b)));
+  }
+
+  @Test
+  void conflictsWhenEditedOutcomeWasRemoved() {
+    assertThrows(OutcomeConflictException.class,
+        () -> OutcomeMerger.merge(List.of(a, b), List.of(outcome("a1"), b), List.of(b)));
+  }
+
+  private static Outcome outcome(String description) {
+    return new Outcome("Plan", "Dev", "Prod", "Env", "P", description, "Notes");
+  }
+}
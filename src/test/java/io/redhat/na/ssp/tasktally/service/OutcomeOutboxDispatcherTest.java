@@ -0,0 +1,153 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry;
+import io.redhat.na.ssp.tasktally.model.OutcomeOutboxEntry.Status;
+import io.redhat.na.ssp.tasktally.model.Template;
+import jakarta.ws.rs.NotFoundException;
+
+class OutcomeOutboxDispatcherTest {
+
+  private OutcomeOutbox outbox;
+  private OutcomeCommitBatcher batcher;
+  private SimpleMeterRegistry registry;
+  private OutcomeOutboxDispatcher dispatcher;
+  private Template template;
+  private OutcomeOutbox codec;
+
+  @BeforeEach
+  void setUp() {
+    outbox = mock(OutcomeOutbox.class);
+    batcher = mock(OutcomeCommitBatcher.class);
+    registry = new SimpleMeterRegistry();
+    dispatcher = new OutcomeOutboxDispatcher(outbox, batcher, registry, false, Duration.ofSeconds(1),
+        Duration.ofMinutes(5), 10, 1);
+    template = new Template();
+    template.id = 1L;
+    template.repositoryUrl = "git@example.com:org/repo.git";
+    codec = new OutcomeOutbox();
+    codec.mapper = new ObjectMapper().findAndRegisterModules();
+    when(outbox.toChange(any())).thenAnswer(inv -> codec.toChange(inv.getArgument(0)));
+  }
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.close();
+  }
+
+  @Test
+  void deliversEntriesInQueueOrderAsOneBatch() {
+    OutcomeOutboxEntry add = entry(1L, new OutcomeChange.Add(new Outcome("P", "T", "Pr", "E", "X", "added", null)));
+    OutcomeOutboxEntry remove = entry(2L, new OutcomeChange.Remove(0));
+    when(outbox.claim(eq(1L), any())).thenReturn(Optional.of(new OutcomeOutbox.Claim(template, null, List.of(add,
+        remove))));
+    when(batcher.submitAll(eq(template), any(), any(), any())).thenReturn(List.of(
+        CompletableFuture.completedFuture(null), CompletableFuture.completedFuture(null)));
+
+    dispatcher.dispatch(1L);
+
+    ArgumentCaptor<List<OutcomeChange>> changes = ArgumentCaptor.captor();
+    verify(batcher).submitAll(eq(template), any(), changes.capture(), eq(List.of(1L, 2L)));
+    assertEquals("added", ((OutcomeChange.Add) changes.getValue().get(0)).outcome().description);
+    assertEquals(new OutcomeChange.Remove(0), changes.getValue().get(1));
+    verify(outbox).complete(List.of(1L, 2L));
+    verify(outbox, never()).fail(anyLong(), anyString(), anyBoolean());
+    assertEquals(2.0, registry.get("outcomes.outbox.deliveries").tag("result", "delivered").counter().count());
+  }
+
+  @Test
+  void missingIndexIsDeadLetteredAndFailedPushIsRetried() {
+    OutcomeOutboxEntry replace = entry(1L, new OutcomeChange.Replace(5, new Outcome()));
+    OutcomeOutboxEntry clear = entry(2L, new OutcomeChange.Clear());
+    when(outbox.claim(eq(1L), any())).thenReturn(Optional.of(new OutcomeOutbox.Claim(template, null, List.of(replace,
+        clear))));
+    when(batcher.submitAll(eq(template), any(), any(), any())).thenReturn(List.of(
+        CompletableFuture.failedFuture(new NotFoundException()),
+        CompletableFuture.failedFuture(new IllegalStateException("push failed"))));
+    when(outbox.fail(eq(1L), anyString(), eq(false))).thenReturn(Status.DEAD);
+    when(outbox.fail(eq(2L), anyString(), eq(true))).thenReturn(Status.PENDING);
+
+    dispatcher.dispatch(1L);
+
+    verify(outbox).fail(eq(1L), anyString(), eq(false));
+    verify(outbox).fail(2L, "push failed", true);
+    verify(outbox).complete(List.of());
+    assertEquals(1.0, registry.get("outcomes.outbox.deliveries").tag("result", "dead").counter().count());
+    assertEquals(1.0, registry.get("outcomes.outbox.deliveries").tag("result", "retried").counter().count());
+  }
+
+  @Test
+  void retryableFailureHoldsBackLaterChanges() {
+    OutcomeOutboxEntry add = entry(1L, new OutcomeChange.Add(new Outcome()));
+    OutcomeOutboxEntry replace = entry(2L, new OutcomeChange.Replace(0, new Outcome()));
+    OutcomeOutboxEntry remove = entry(3L, new OutcomeChange.Remove(0));
+    when(outbox.claim(eq(1L), any())).thenReturn(Optional.of(new OutcomeOutbox.Claim(template, null, List.of(add,
+        replace, remove))));
+    when(batcher.submitAll(eq(template), any(), any(), any())).thenReturn(List.of(
+        CompletableFuture.completedFuture(null),
+        CompletableFuture.failedFuture(new IllegalArgumentException("bad outcome")),
+        CompletableFuture.failedFuture(new IllegalStateException("not applied"))));
+    when(outbox.fail(eq(2L), anyString(), eq(true))).thenReturn(Status.PENDING);
+
+    dispatcher.dispatch(1L);
+
+    verify(outbox).complete(List.of(1L));
+    verify(outbox).fail(2L, "bad outcome", true);
+    verify(outbox, never()).fail(eq(3L), anyString(), anyBoolean());
+    verify(outbox).release(List.of(3L));
+    assertEquals(1.0, registry.get("outcomes.outbox.deliveries").tag("result", "delivered").counter().count());
+  }
+
+  @Test
+  void skipsTemplatesClaimedElsewhere() {
+    when(outbox.claim(eq(1L), any())).thenReturn(Optional.empty());
+
+    dispatcher.dispatch(1L);
+
+    verify(batcher, never()).submitAll(any(), any(), any(), any());
+    verify(outbox, never()).complete(any());
+  }
+
+  @Test
+  void entriesRoundTripThroughTheOutbox() {
+    Outcome outcome = new Outcome("P", "T", "Pr", "E", "X", "described", "notes");
+    OutcomeChange.Replace change = (OutcomeChange.Replace) codec.toChange(codec.toEntry(
+        new OutcomeChange.Replace(3, outcome)));
+
+    assertEquals(3, change.index());
+    assertEquals("described", change.outcome().description);
+    assertEquals("P", change.outcome().phase.name);
+    assertEquals(outcome.createdAt, change.outcome().createdAt);
+  }
+
+  private OutcomeOutboxEntry entry(Long id, OutcomeChange change) {
+    OutcomeOutboxEntry entry = codec.toEntry(change);
+    entry.id = id;
+    entry.templateId = template.id;
+    return entry;
+  }
+}
@@ -0,0 +1,123 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import io.redhat.na.ssp.tasktally.model.OutcomeProjectionState;
+import io.redhat.na.ssp.tasktally.model.ProjectedOutcome;
+import io.redhat.na.ssp.tasktally.model.Template;
+import io.redhat.na.ssp.tasktally.repo.OutcomeProjectionStateRepository;
+import io.redhat.na.ssp.tasktally.repo.ProjectedOutcomeRepository;
+import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
+import jakarta.persistence.LockModeType;
+
+@ExtendWith(MockitoExtension.class)
+class OutcomeProjectionTest {
+
+  @Mock
+  ProjectedOutcomeRepository rowRepo;
+
+  @Mock
+  OutcomeProjectionStateRepository stateRepo;
+
+  @Mock
+  TemplateRepository templateRepo;
+
+  @InjectMocks
+  OutcomeProjection projection;
+
+  private OutcomeProjectionState state;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(templateRepo.findById(1L, LockModeType.PESSIMISTIC_WRITE)).thenReturn(new Template());
+    state = new OutcomeProjectionState();
+    state.templateId = 1L;
+    state.commitId = "c1";
+    state.blobId = "b1";
+    when(stateRepo.findById(1L)).thenReturn(state);
+  }
+
+  @Test
+  void writesOnlyChangedRows() {
+    ProjectedOutcome kept = row(0, "kept");
+    ProjectedOutcome changed = row(1, "old");
+    ProjectedOutcome dropped = row(2, "dropped");
+    when(rowRepo.listByTemplate(1L)).thenReturn(List.of(kept, changed, dropped));
+    when(rowRepo.deleteFrom(1L, 2)).thenReturn(1L);
+    when(stateRepo.isPersistent(state)).thenReturn(true);
+
+    projection.refresh(1L, "c2", "b2", List.of(outcome("kept"), outcome("new")));
+
+    assertEquals("kept", kept.description);
+    assertEquals("new", changed.description);
+    verify(rowRepo).deleteFrom(1L, 2);
+    verify(rowRepo, never()).persist(any(ProjectedOutcome.class));
+    assertEquals("c2", state.commitId);
+    assertEquals("b2", state.blobId);
+  }
+
+  @Test
+  void appendsRowsForNewOutcomes() {
+    when(rowRepo.listByTemplate(1L)).thenReturn(List.of(row(0, "first")));
+    when(stateRepo.isPersistent(state)).thenReturn(true);
+
+    projection.refresh(1L, "c2", "b2", List.of(outcome("first"), outcome("second")));
+
+    ArgumentCaptor<ProjectedOutcome> persisted = ArgumentCaptor.forClass(ProjectedOutcome.class);
+    verify(rowRepo).persist(persisted.capture());
+    assertEquals(1, persisted.getValue().position);
+    assertEquals("second", persisted.getValue().description);
+    verify(rowRepo, never()).deleteFrom(any(), anyInt());
+  }
+
+  @Test
+  void unchangedBlobOnlyMovesCommit() {
+    projection.refresh(1L, "c2", "b1", List.of(outcome("same")));
+
+    assertEquals("c2", state.commitId);
+    verify(rowRepo, never()).listByTemplate(any());
+  }
+
+  @Test
+  void readsOnlyAtProjectedCommit() {
+    when(rowRepo.listByTemplate(1L)).thenReturn(List.of(row(0, "projected")));
+
+    assertTrue(projection.read(1L, "c2").isEmpty());
+    assertEquals("projected", projection.read(1L, "c1").orElseThrow().get(0).description);
+  }
+
+  private static ProjectedOutcome row(int position, String description) {
+    ProjectedOutcome row = new ProjectedOutcome();
+    row.templateId = 1L;
+    row.position = position;
+    row.phaseName = "Plan";
+    row.track = "Dev";
+    row.product = "Prod";
+    row.environment = "Env";
+    row.prefix = "P";
+    row.description = description;
+    return row;
+  }
+
+  private static Outcome outcome(String description) {
+    return new Outcome("Plan", "Dev", "Prod", "Env", "P", description, null);
+  }
+}
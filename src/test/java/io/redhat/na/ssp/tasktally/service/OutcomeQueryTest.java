@@ -0,0 +1,86 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.redhat.na.ssp.tasktally.model.Outcome;
+import jakarta.ws.rs.BadRequestException;
+
+class OutcomeQueryTest {
+
+  private static final List<Outcome> OUTCOMES = List.of(
+      new Outcome("Plan", "Dev", "OpenShift", "Prod", "A", "d", null),
+      new Outcome("Build", "Ops", "RHEL", "Prod", "B", "b", null),
+      new Outcome("Plan", "Ops", "RHEL", "Test", "C", "c", null),
+      new Outcome("Plan", "Dev", "RHEL", "Prod", "D", "a", null));
+
+  @Test
+  void filtersByPhaseFieldsInFileOrder() {
+    OutcomeQuery query = OutcomeQuery.of("Plan", null, "RHEL", null, null, null, null);
+
+    OutcomeQuery.Page page = query.apply(OUTCOMES);
+
+    assertEquals(List.of(2, 3), positions(page));
+    assertNull(page.nextCursor());
+    assertEquals(Map.of("phaseName", "Plan", "product", "RHEL"), query.filters());
+  }
+
+  @Test
+  void pagesWithCursorInSortOrder() {
+    OutcomeQuery first = OutcomeQuery.of(null, null, null, null, "-description", 2, null);
+    OutcomeQuery.Page page1 = first.apply(OUTCOMES);
+    OutcomeQuery second = OutcomeQuery.of(null, null, null, null, "-description", 2, page1.nextCursor());
+    OutcomeQuery.Page page2 = second.apply(OUTCOMES);
+
+    assertEquals(List.of(0, 2), positions(page1));
+    assertEquals(List.of(1, 3), positions(page2));
+    assertNull(page2.nextCursor());
+  }
+
+  @Test
+  void breaksSortTiesByPosition() {
+    OutcomeQuery first = OutcomeQuery.of(null, null, null, null, "track", 1, null);
+    OutcomeQuery.Page page1 = first.apply(OUTCOMES);
+    OutcomeQuery.Page page2 = OutcomeQuery.of(null, null, null, null, "track", 1, page1.nextCursor())
+        .apply(OUTCOMES);
+
+    assertEquals(List.of(0), positions(page1));
+    assertEquals(List.of(3), positions(page2));
+  }
+
+  @Test
+  void rejectsInvalidParameters() {
+    assertThrows(BadRequestException.class, () -> OutcomeQuery.of(null, null, null, null, "color", null, null));
+    assertThrows(BadRequestException.class, () -> OutcomeQuery.of(null, null, null, null, null, 0, null));
+    assertThrows(BadRequestException.class, () -> OutcomeQuery.of(null, null, null, null, null, null, "%%%"));
+    String cursor = OutcomeQuery.of(null, null, null, null, "track", 1, null).apply(OUTCOMES).nextCursor();
+    assertThrows(BadRequestException.class, () -> OutcomeQuery.of(null, null, null, null, "prefix", 1, cursor));
+  }
+
+  @Test
+  void sortsMixedCaseKeysByCodePoint() {
+    List<Outcome> mixed = List.of(new Outcome("Plan", "Dev", "RHEL", "Prod", "b", "x", null),
+        new Outcome("Plan", "Dev", "RHEL", "Prod", "B", "x", null),
+        new Outcome("Plan", "Dev", "RHEL", "Prod", "a", "x", null),
+        new Outcome("Plan", "Dev", "RHEL", "Prod", "\uD83D\uDE00", "x", null),
+        new Outcome("Plan", "Dev", "RHEL", "Prod", "\uFF21", "x", null),
+        new Outcome("Plan", "Dev", "RHEL", "Prod", "A", "x", null));
+
+    OutcomeQuery.Page page1 = OutcomeQuery.of(null, null, null, null, "prefix", 3, null).apply(mixed);
+    OutcomeQuery.Page page2 = OutcomeQuery.of(null, null, null, null, "prefix", 3, page1.nextCursor()).apply(mixed);
+
+    // Upper case before lower case, supplementary characters after the rest of the BMP
+    assertEquals(List.of(5, 1, 2), positions(page1));
+    assertEquals(List.of(0, 4, 3), positions(page2));
+  }
+
+  private static List<Integer> positions(OutcomeQuery.Page page) {
+    return page.entries().stream().map(OutcomeQuery.Entry::position).toList();
+  }
+}
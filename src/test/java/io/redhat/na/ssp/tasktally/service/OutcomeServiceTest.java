@@ -19,8 +19,8 @@ import io.quarkus.test.junit.QuarkusTest;
 import io.redhat.na.ssp.tasktally.model.Outcome;
 import io.redhat.na.ssp.tasktally.model.Template;
 import io.redhat.na.ssp.tasktally.model.UserPreferences;
+import io.redhat.na.ssp.tasktally.repo.TemplateAccess;
 import io.redhat.na.ssp.tasktally.repo.TemplateRepository;
-import io.redhat.na.ssp.tasktally.repo.UserPreferencesRepository;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.NotFoundException;
 
@@ -36,9 +36,6 @@ class OutcomeServiceTest {
   @InjectMock
   TemplateRepository templateRepo;
 
-  @InjectMock
-  UserPreferencesRepository userRepo;
-
   private UserPreferences userPrefs;
   private Template template;
   private Outcome outcome;
@@ -63,8 +60,7 @@ class OutcomeServiceTest {
   @Test
   void testListByTemplate_Success() {
     // Given
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.of(userPrefs));
-    when(templateRepo.findByUserAndId(1L, 1L)).thenReturn(Optional.of(template));
+    when(templateRepo.findAccess("test-user", 1L)).thenReturn(Optional.of(new TemplateAccess(template, 1L, null)));
     when(gitYamlService.readOutcomes(template, null)).thenReturn(new ArrayList<>(Arrays.asList(outcome)));
 
     // When
@@ -80,19 +76,7 @@ class OutcomeServiceTest {
   @Test
   void testListByTemplate_UserNotFound() {
     // Given
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.empty());
-
-    // When & Then
-    assertThrows(NotFoundException.class, () -> {
-      outcomeService.listByTemplate("test-user", 1L);
-    });
-  }
-
-  @Test
-  void testListByTemplate_TemplateNotFound() {
-    // Given
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.of(userPrefs));
-    when(templateRepo.findByUserAndId(1L, 1L)).thenReturn(Optional.empty());
+    when(templateRepo.findAccess("test-user", 1L)).thenReturn(Optional.empty());
 
     // When & Then
     assertThrows(NotFoundException.class, () -> {
@@ -101,14 +85,14 @@ class OutcomeServiceTest {
   }
 
   @Test
-  void testCreate_Success() {
+  void testCreate_Success() throws Exception {
     // Given
     Outcome newOutcome = new Outcome("Implementation", "Security", "RHEL", "Development", "SEC",
         "Security baseline established", "Follow CIS benchmarks");
 
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.of(userPrefs));
-    when(templateRepo.findByUserAndId(1L, 1L)).thenReturn(Optional.of(template));
-    when(gitYamlService.readOutcomes(template, null)).thenReturn(new ArrayList<>(Arrays.asList(outcome)));
+    when(templateRepo.findAccess("test-user", 1L)).thenReturn(Optional.of(new TemplateAccess(template, 1L, null)));
+    when(gitYamlService.readSnapshot(template, null))
+        .thenReturn(new OutcomeSnapshot("c1", new ArrayList<>(Arrays.asList(outcome))));
 
     // When
     Outcome result = outcomeService.create("test-user", 1L, newOutcome);
@@ -117,19 +101,19 @@ class OutcomeServiceTest {
     assertNotNull(result);
     assertEquals("Implementation", result.phase.name);
     assertEquals("Security", result.phase.track);
-    verify(gitYamlService).readOutcomes(template, null);
-    verify(gitYamlService).writeOutcomes(template, Arrays.asList(outcome, newOutcome), null);
+    verify(gitYamlService).readSnapshot(template, null);
+    verify(gitYamlService).writeOutcomes(template, Arrays.asList(outcome, newOutcome), "c1", null, List.of());
   }
 
   @Test
-  void testUpdate_Success() {
+  void testUpdate_Success() throws Exception {
     // Given
     Outcome updatedOutcome = new Outcome("Updated Phase", "Updated Track", "Updated Product", "Updated Environment",
         "UPD", "Updated outcome text", "Updated scoping notes");
 
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.of(userPrefs));
-    when(templateRepo.findByUserAndId(1L, 1L)).thenReturn(Optional.of(template));
-    when(gitYamlService.readOutcomes(template, null)).thenReturn(new ArrayList<>(Arrays.asList(outcome)));
+    when(templateRepo.findAccess("test-user", 1L)).thenReturn(Optional.of(new TemplateAccess(template, 1L, null)));
+    when(gitYamlService.readSnapshot(template, null))
+        .thenReturn(new OutcomeSnapshot("c1", new ArrayList<>(Arrays.asList(outcome))));
 
     // When
     Outcome result = outcomeService.update("test-user", 1L, 0L, updatedOutcome);
@@ -143,8 +127,8 @@ class OutcomeServiceTest {
     assertEquals("UPD", result.prefix);
     assertEquals("Updated outcome text", result.description);
     assertEquals("Updated scoping notes", result.notes);
-    verify(gitYamlService).readOutcomes(template, null);
-    verify(gitYamlService).writeOutcomes(template, Arrays.asList(updatedOutcome), null);
+    verify(gitYamlService).readSnapshot(template, null);
+    verify(gitYamlService).writeOutcomes(template, Arrays.asList(updatedOutcome), "c1", null, List.of());
   }
 
   @Test
@@ -152,9 +136,9 @@ class OutcomeServiceTest {
     // Given
     Outcome updatedOutcome = new Outcome("Updated Phase", "Updated Track", "Updated Product", "Updated Environment",
         "UPD", "Updated outcome text", "Updated scoping notes");
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.of(userPrefs));
-    when(templateRepo.findByUserAndId(1L, 1L)).thenReturn(Optional.of(template));
-    when(gitYamlService.readOutcomes(template, null)).thenReturn(new ArrayList<>(Arrays.asList(outcome)));
+    when(templateRepo.findAccess("test-user", 1L)).thenReturn(Optional.of(new TemplateAccess(template, 1L, null)));
+    when(gitYamlService.readSnapshot(template, null))
+        .thenReturn(new OutcomeSnapshot("c1", new ArrayList<>(Arrays.asList(outcome))));
 
     // When & Then
     assertThrows(NotFoundException.class, () -> {
@@ -163,30 +147,31 @@ class OutcomeServiceTest {
   }
 
   @Test
-  void testDelete_Success() {
+  void testDelete_Success() throws Exception {
     // Given
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.of(userPrefs));
-    when(templateRepo.findByUserAndId(1L, 1L)).thenReturn(Optional.of(template));
-    when(gitYamlService.readOutcomes(template, null)).thenReturn(new ArrayList<>(Arrays.asList(outcome)));
+    when(templateRepo.findAccess("test-user", 1L)).thenReturn(Optional.of(new TemplateAccess(template, 1L, null)));
+    when(gitYamlService.readSnapshot(template, null))
+        .thenReturn(new OutcomeSnapshot("c1", new ArrayList<>(Arrays.asList(outcome))));
 
     // When
     outcomeService.delete("test-user", 1L, 0L);
 
     // Then
-    verify(gitYamlService).readOutcomes(template, null);
-    verify(gitYamlService).writeOutcomes(template, Arrays.asList(), null);
+    verify(gitYamlService).readSnapshot(template, null);
+    verify(gitYamlService).writeOutcomes(template, Arrays.asList(), "c1", null, List.of());
   }
 
   @Test
-  void testDeleteAllByTemplate_Success() {
+  void testDeleteAllByTemplate_Success() throws Exception {
     // Given
-    when(userRepo.findByUserId("test-user")).thenReturn(Optional.of(userPrefs));
-    when(templateRepo.findByUserAndId(1L, 1L)).thenReturn(Optional.of(template));
+    when(templateRepo.findAccess("test-user", 1L)).thenReturn(Optional.of(new TemplateAccess(template, 1L, null)));
+    when(gitYamlService.readSnapshot(template, null))
+        .thenReturn(new OutcomeSnapshot("c1", new ArrayList<>(Arrays.asList(outcome))));
 
     // When
     outcomeService.deleteAllByTemplate("test-user", 1L);
 
     // Then
-    verify(gitYamlService).writeOutcomes(template, Arrays.asList(), null);
+    verify(gitYamlService).writeOutcomes(template, Arrays.asList(), "c1", null, List.of());
   }
 }
@@ -0,0 +1,41 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.redhat.na.ssp.tasktally.service.OutcomeTally.Dimension;
+import jakarta.ws.rs.BadRequestException;
+
+class OutcomeTallyTest {
+
+  @Test
+  void parsesGroupByInOrder() {
+    assertEquals(List.of(Dimension.TRACK, Dimension.PHASE), OutcomeTally.parse(" track, Phase"));
+    assertTrue(OutcomeTally.parse(null).isEmpty());
+    assertTrue(OutcomeTally.parse("").isEmpty());
+  }
+
+  @Test
+  void rejectsUnknownAndRepeatedFields() {
+    assertThrows(BadRequestException.class, () -> OutcomeTally.parse("phase,color"));
+    assertThrows(BadRequestException.class, () -> OutcomeTally.parse("track,track"));
+  }
+
+  @Test
+  void mapsRowsToGroups() {
+    OutcomeTally.Group group = OutcomeTally.group(List.of(Dimension.PHASE, Dimension.TRACK),
+        new Object[] { "Plan", "", 3L });
+
+    assertEquals("Plan", group.key().get(Dimension.PHASE));
+    assertNull(group.key().get(Dimension.TRACK));
+    assertTrue(group.key().containsKey(Dimension.TRACK));
+    assertEquals(3, group.count());
+    assertEquals(7, OutcomeTally.group(List.of(), new Object[] { 7 }).count());
+  }
+}
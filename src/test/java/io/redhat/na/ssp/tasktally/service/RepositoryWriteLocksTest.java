@@ -0,0 +1,65 @@
+package io.redhat.na.ssp.tasktally.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RepositoryWriteLocksTest {
+
+  @Test
+  void serializesWritesToSameRepository() throws Exception {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    RepositoryWriteLocks locks = new RepositoryWriteLocks(registry);
+    CountDownLatch holding = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> locks.withLock("repo", () -> {
+      holding.countDown();
+      return await(release);
+    }));
+    assertTrue(holding.await(5, TimeUnit.SECONDS));
+    CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> locks.withLock("repo", () -> "second"));
+
+    waitFor(() -> locks.queueDepth() == 1);
+    assertEquals(1.0, registry.get("git.write.queue.depth").gauge().value());
+    release.countDown();
+    assertTrue(first.get(5, TimeUnit.SECONDS));
+    assertEquals("second", second.get(5, TimeUnit.SECONDS));
+    assertEquals(0, locks.queueDepth());
+    assertEquals(2, registry.get("git.write.lock.wait").timer().count());
+    assertEquals(0.0, registry.get("git.write.locks.active").gauge().value());
+  }
+
+  @Test
+  void differentRepositoriesDoNotBlock() throws Exception {
+    RepositoryWriteLocks locks = new RepositoryWriteLocks(new SimpleMeterRegistry());
+    String result = locks.withLock("a", () -> CompletableFuture.supplyAsync(() -> locks.withLock("b", () -> "b"))
+        .get(5, TimeUnit.SECONDS));
+    assertEquals("b", result);
+  }
+
+  private static boolean await(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(5);
+    }
+    assertTrue(condition.getAsBoolean());
+  }
+}
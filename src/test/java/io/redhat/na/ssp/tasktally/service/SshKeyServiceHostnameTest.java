@@ -6,14 +6,18 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.redhat.na.ssp.tasktally.api.SshKeyCreateRequest;
 import io.redhat.na.ssp.tasktally.api.SshKeyGenerateRequest;
 import io.redhat.na.ssp.tasktally.model.CredentialRef;
@@ -35,6 +39,8 @@ class SshKeyServiceHostnameTest {
   private SecretResolver secretResolver;
   @Mock
   private SshHostKeyService sshHostKeyService;
+  @Spy
+  private KeyPairPool keyPairPool = new KeyPairPool(new SimpleMeterRegistry(), false, Duration.ofSeconds(5), Map.of());
 
   @InjectMocks
   private SshKeyService sshKeyService;
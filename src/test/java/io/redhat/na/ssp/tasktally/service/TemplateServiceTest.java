@@ -5,12 +5,9 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -60,12 +57,7 @@ public class TemplateServiceTest {
     up.userId = userId;
     userRepo.persist(up);
 
-    when(gitService.cloneShallow(any(), any(), any(Path.class), any())).thenAnswer(invocation -> {
-      Path dir = invocation.getArgument(2);
-      Files.createDirectories(dir);
-      return dir;
-    });
-    doNothing().when(gitService).commitAndPush(any(Path.class), any(), any(), any(), any());
+    when(gitService.commitFile(any(), any(), any(), any(), any(), any(), any(), any())).thenReturn("0000000");
   }
 
   @AfterEach